@@ -0,0 +1,98 @@
+package com.bracit.voucher_engine.benchmark;
+
+import com.bracit.voucher_engine.VoucherEngineApplication;
+import com.bracit.voucher_engine.dto.DebitVoucherDto;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.service.DebitVoucherService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of DebitVoucherService.createVouchersBulk (mapping, id allocation, JDBC
+ * batching and commit) against an embedded H2 database. The application context is started
+ * without the web server, and the RabbitMQ listeners are not started
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkPersistenceBenchmark {
+
+    private static final String[] CONTEXT_ARGS = {
+            "--spring.main.web-application-type=none",
+            "--spring.datasource.url=jdbc:h2:mem:voucher_jmh;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.show-sql=false",
+            "--spring.rabbitmq.listener.simple.auto-startup=false",
+            "--app.batch-consumer.auto-startup=false",
+            "--app.adaptive-listener.enabled=false",
+            "--app.voucher-cache.enabled=false",
+            "--logging.level.root=WARN"
+    };
+
+    @Param({"10", "100", "1000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private DebitVoucherService debitVoucherService;
+    private List<DebitVoucherDto> batch;
+    private long nextIndex;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = SpringApplication.run(VoucherEngineApplication.class, CONTEXT_ARGS);
+        debitVoucherService = context.getBean(DebitVoucherService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    /**
+     * Voucher numbers are unique, so every invocation needs a fresh batch
+     */
+    @Setup(Level.Invocation)
+    public void prepareBatch() {
+        LocalDate today = LocalDate.now();
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            long index = nextIndex++;
+            batch.add(DebitVoucherDto.builder()
+                    .voucherNumber("JMH" + index)
+                    .voucherDate(today)
+                    .amount(BigDecimal.valueOf(index % 1_000_000, 2))
+                    .description("Benchmark voucher")
+                    .createdBy("JMH")
+                    .createdDate(today)
+                    .status(VoucherStatus.PENDING_APPROVAL)
+                    .debitAccount("1001")
+                    .creditAccount("2001")
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<DebitVoucherDto> createVouchersBulk() {
+        return debitVoucherService.createVouchersBulk(batch);
+    }
+}
@@ -0,0 +1,74 @@
+package com.bracit.voucher_engine.benchmark;
+
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.messaging.VoucherMessageConverter;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of DebitVoucherMessage with the converter used by the RabbitMQ templates
+ * and listener containers, for both wire formats. The encoded size of each format is printed
+ * once per trial
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageConverterBenchmark {
+
+    private static final ParameterizedTypeReference<DebitVoucherMessage> MESSAGE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Param({"json", "binary"})
+    private String wireFormat;
+
+    private VoucherMessageConverter converter;
+    private DebitVoucherMessage voucherMessage;
+    private Message encoded;
+
+    @Setup
+    public void setUp() {
+        converter = new VoucherMessageConverter(new Jackson2JsonMessageConverter(), "binary".equals(wireFormat));
+
+        LocalDate today = LocalDate.now();
+        voucherMessage = DebitVoucherMessage.builder()
+                .voucherNumber("DV0000000042")
+                .voucherDate(today)
+                .amount(new BigDecimal("1234.56"))
+                .description("Vendor payment")
+                .createdBy("SYSTEM")
+                .createdDate(today)
+                .status(VoucherStatus.PENDING_APPROVAL)
+                .debitAccount("1001")
+                .creditAccount("2001")
+                .build();
+        encoded = converter.toMessage(voucherMessage, new MessageProperties());
+        System.out.println(wireFormat + " encoded size: " + encoded.getBody().length + " bytes");
+    }
+
+    @Benchmark
+    public Message encode() {
+        return converter.toMessage(voucherMessage, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decode() {
+        // Resolve the target type the way a typed @RabbitListener parameter does
+        return converter.fromMessage(encoded, MESSAGE_TYPE);
+    }
+}
@@ -0,0 +1,38 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-voucher cost of the voucher generator used by bulk generation.
+ * Generation keeps no shared state, so the multi-threaded variant should scale with the thread count
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VoucherGenerationBenchmark {
+
+    private final BulkDebitVoucherProducer producer = new BulkDebitVoucherProducer();
+    private final LocalDate today = LocalDate.now();
+    private long index;
+
+    @Benchmark
+    public DebitVoucherMessage generateVoucherMessage() {
+        return producer.generateVoucherMessage(index++, today);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public DebitVoucherMessage generateVoucherMessageParallel() {
+        return producer.generateVoucherMessage(System.nanoTime(), today);
+    }
+}
@@ -0,0 +1,60 @@
+package com.bracit.voucher_engine.service.impl;
+
+import com.bracit.voucher_engine.dto.DebitVoucherDto;
+import com.bracit.voucher_engine.model.DebitVoucher;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO mapping cost of DebitVoucherServiceImpl, paid once per voucher on every read and write
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VoucherMappingBenchmark {
+
+    private DebitVoucherServiceImpl service;
+    private DebitVoucher entity;
+    private DebitVoucherDto dto;
+
+    @Setup
+    public void setUp() {
+        // The mapping methods touch neither the repository nor the cache
+        service = new DebitVoucherServiceImpl(null, null);
+
+        LocalDate today = LocalDate.now();
+        dto = DebitVoucherDto.builder()
+                .id(42L)
+                .voucherNumber("DV0000000042")
+                .voucherDate(today)
+                .amount(new BigDecimal("1234.56"))
+                .description("Vendor payment")
+                .createdBy("SYSTEM")
+                .createdDate(today)
+                .status(VoucherStatus.PENDING_APPROVAL)
+                .debitAccount("1001")
+                .creditAccount("2001")
+                .build();
+        entity = service.mapToEntity(dto);
+    }
+
+    @Benchmark
+    public DebitVoucherDto mapToDto() {
+        return service.mapToDto(entity);
+    }
+
+    @Benchmark
+    public DebitVoucher mapToEntity() {
+        return service.mapToEntity(dto);
+    }
+}
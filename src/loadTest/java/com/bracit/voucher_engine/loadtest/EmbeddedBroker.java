@@ -0,0 +1,62 @@
+package com.bracit.voucher_engine.loadtest;
+
+import org.apache.qpid.server.SystemLauncher;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process AMQP 0-9-1 broker (Qpid Broker-J with an in-memory store) standing in for RabbitMQ.
+ * It has a single virtual host named "default" and accepts the guest/guest user
+ */
+public class EmbeddedBroker implements AutoCloseable {
+
+    public static final String VIRTUAL_HOST = "default";
+
+    private final SystemLauncher launcher = new SystemLauncher();
+    private final int port;
+
+    private EmbeddedBroker(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Start a broker listening on a free local port
+     * @return The running broker
+     */
+    public static EmbeddedBroker start() throws Exception {
+        EmbeddedBroker broker = new EmbeddedBroker(findFreePort());
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("qpid.amqp_port", broker.port);
+        context.put("qpid.work_dir", Files.createTempDirectory("qpid-work").toString());
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("type", "Memory");
+        attributes.put("initialConfigurationLocation",
+                EmbeddedBroker.class.getResource("/qpid-embedded.json").toExternalForm());
+        attributes.put("startupLoggedToSystemOut", false);
+        attributes.put("context", context);
+
+        broker.launcher.startup(attributes);
+        return broker;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.bracit.voucher_engine.loadtest;
+
+import com.bracit.voucher_engine.VoucherEngineApplication;
+import com.bracit.voucher_engine.repository.DebitVoucherRepository;
+import com.bracit.voucher_engine.service.BulkDebitVoucherProducer;
+import com.bracit.voucher_engine.service.VoucherPipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test of the produce -> consume -> persist path.
+ * Starts an embedded AMQP broker and the application against H2 in PostgreSQL mode, publishes
+ * vouchers through BulkDebitVoucherProducer at the requested rate, waits for the consumers to
+ * drain the queue and reports sustained throughput, end-to-end latency percentiles and loss.
+ *
+ * Options (system properties, passed as -PloadTest.x=... to the Gradle task):
+ * - loadTest.count: vouchers to publish (default 100000)
+ * - loadTest.rate: target vouchers per second, 0 for as fast as possible (default 0)
+ * - loadTest.batchSize: producer batch size (default 100)
+ * - loadTest.threads: producer threads (default 4)
+ * - loadTest.drainTimeoutSeconds: give up after this long without progress (default 60)
+ */
+public class VoucherLoadTest {
+
+    private static final long TICK_MILLIS = 100;
+    private static final long POLL_MILLIS = 250;
+
+    public static void main(String[] args) throws Exception {
+        long count = Long.getLong("loadTest.count", 100_000);
+        long rate = Long.getLong("loadTest.rate", 0);
+        int batchSize = Integer.getInteger("loadTest.batchSize", 100);
+        int threads = Integer.getInteger("loadTest.threads", 4);
+        long drainTimeoutMillis = TimeUnit.SECONDS.toMillis(Long.getLong("loadTest.drainTimeoutSeconds", 60));
+
+        int exitCode;
+        try (EmbeddedBroker broker = EmbeddedBroker.start();
+             ConfigurableApplicationContext context = startApplication(broker)) {
+            BulkDebitVoucherProducer producer = context.getBean(BulkDebitVoucherProducer.class);
+            DebitVoucherRepository repository = context.getBean(DebitVoucherRepository.class);
+            VoucherPipelineMetrics metrics = context.getBean(VoucherPipelineMetrics.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+            System.out.printf("Load test: %d vouchers at %s, batch size %d, %d producer threads%n",
+                    count, rate > 0 ? rate + " vouchers/s" : "full speed", batchSize, threads);
+
+            long start = System.nanoTime();
+            long published = publish(producer, count, rate, batchSize, threads);
+            long publishNanos = System.nanoTime() - start;
+
+            // Wait until everything published is stored, or progress stops
+            long persisted = repository.count();
+            long lastProgressNanos = System.nanoTime();
+            while (persisted < published
+                    && System.nanoTime() - lastProgressNanos < TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis)) {
+                Thread.sleep(POLL_MILLIS);
+                long current = repository.count();
+                if (current > persisted) {
+                    persisted = current;
+                    lastProgressNanos = System.nanoTime();
+                }
+            }
+            double elapsedSeconds = (lastProgressNanos - start) / 1_000_000_000.0;
+            long lost = published - persisted;
+
+            System.out.println("=== Voucher load test results ===");
+            System.out.printf("Published:            %d (%.0f vouchers/s)%n",
+                    published, published / (publishNanos / 1_000_000_000.0));
+            System.out.printf("Persisted:            %d in %.1f s%n", persisted, elapsedSeconds);
+            System.out.printf("Sustained throughput: %.0f vouchers/s%n", persisted / elapsedSeconds);
+            System.out.printf("Dead-lettered:        %.0f%n", metrics.getDeadLetteredCount());
+            System.out.printf("Lost:                 %d%n", lost);
+            for (Timer timer : registry.find("voucher.e2e.latency").timers()) {
+                System.out.printf("E2E latency (%s listener): %s over %d vouchers%n",
+                        timer.getId().getTag("listener"), formatPercentiles(timer), timer.count());
+            }
+
+            exitCode = lost > 0 ? 1 : 0;
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext startApplication(EmbeddedBroker broker) {
+        System.setProperty("spring.threads.virtual.enabled", "true");
+        return SpringApplication.run(VoucherEngineApplication.class,
+                "--spring.main.web-application-type=none",
+                "--spring.rabbitmq.host=localhost",
+                "--spring.rabbitmq.port=" + broker.getPort(),
+                "--spring.rabbitmq.virtual-host=" + EmbeddedBroker.VIRTUAL_HOST,
+                "--spring.rabbitmq.username=guest",
+                "--spring.rabbitmq.password=guest",
+                "--spring.datasource.url=jdbc:h2:mem:voucher_load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--app.bulk-writer.mode=jpa",
+                "--logging.level.root=WARN",
+                "--logging.level.org.apache.qpid=WARN");
+    }
+
+    /**
+     * Publish count vouchers, in 100 ms slices when a rate is given
+     * @return The number of vouchers published successfully
+     */
+    private static long publish(BulkDebitVoucherProducer producer, long count, long rate,
+                                int batchSize, int threads) throws InterruptedException {
+        if (rate <= 0) {
+            return producer.generateAndPublishBulkVouchers(0, count, batchSize, threads);
+        }
+
+        long perTick = Math.max(1, rate * TICK_MILLIS / 1000);
+        long published = 0;
+        long start = System.currentTimeMillis();
+        long tick = 0;
+        for (long index = 0; index < count; index += perTick) {
+            long sliceSize = Math.min(perTick, count - index);
+            published += producer.generateAndPublishBulkVouchers(index, sliceSize, batchSize, threads);
+
+            long sleepMillis = start + ++tick * TICK_MILLIS - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                Thread.sleep(sleepMillis);
+            }
+        }
+
+        double achievedRate = published / ((System.currentTimeMillis() - start) / 1000.0);
+        if (achievedRate < rate * 0.95) {
+            System.out.printf("Producer could not sustain %d vouchers/s (achieved %.0f)%n", rate, achievedRate);
+        }
+        return published;
+    }
+
+    private static String formatPercentiles(Timer timer) {
+        StringBuilder result = new StringBuilder();
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (!result.isEmpty()) {
+                result.append(", ");
+            }
+            result.append(String.format("p%.0f %.1f ms", percentile.percentile() * 100,
+                    percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        return result.toString();
+    }
+}
@@ -1,22 +1,21 @@
 package com.bracit.voucher_engine.config;
 
+import com.bracit.voucher_engine.messaging.MessageCompression;
+import com.bracit.voucher_engine.messaging.MeteredCompressionPostProcessor;
+import com.bracit.voucher_engine.service.VoucherPipelineMetrics;
 import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
-import org.springframework.amqp.rabbit.core.BatchingRabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
-import org.springframework.amqp.rabbit.batch.BatchingStrategy;
-import org.springframework.amqp.rabbit.batch.SimpleBatchingStrategy;
-
-import java.util.concurrent.Executors;
 
 /**
  * Configuration for batch message consumption from RabbitMQ
@@ -31,34 +30,69 @@ public class BatchConsumerConfig {
     @Value("${app.batch-consumer.receive-timeout:1000}")
     private long receiveTimeout;
     
+    @Value("${app.batch-consumer.acknowledge-mode:MANUAL}")
+    private AcknowledgeMode acknowledgeMode;
+    
+    @Value("${app.batch-consumer.auto-startup:true}")
+    private boolean autoStartup;
+    
     @Autowired
     @Qualifier("asyncTaskExecutor")
     private AsyncTaskExecutor taskExecutor;
     
+    @Value("${app.batch-publisher.compression:none}")
+    private String compression;
+    
+    @Value("${app.batch-publisher.compression-min-bytes:1024}")
+    private int compressionMinBytes;
+    
+    @Value("${app.batch-publisher.compression-level:-1}")
+    private int compressionLevel;
+    
+    @Autowired
+    private MessageConverter voucherMessageConverter;
+    
+    @Autowired
+    private VoucherPipelineMetrics metrics;
+    
     /**
-     * Creates a batching RabbitMQ template for efficient message publishing
-     * @param connectionFactory The RabbitMQ connection factory
-     * @return A configured BatchingRabbitTemplate
+     * Creates the post processor that compresses batch messages before publishing
+     * (see ConfirmingVoucherPublisher). Batches below compression-min-bytes are left as they are;
+     * with compression "none" messages pass through unchanged
+     * @return The compressing post processor
      */
     @Bean
-    public BatchingRabbitTemplate batchingRabbitTemplate(ConnectionFactory connectionFactory) {
-        BatchingStrategy batchingStrategy = new SimpleBatchingStrategy(
-                batchSize,  // max messages per batch
-                1024 * 1024,  // max bytes per batch (1MB)
-                receiveTimeout  // timeout for incomplete batches
-        );
-        
-        TaskScheduler taskScheduler = new ConcurrentTaskScheduler(
-                Executors.newSingleThreadScheduledExecutor()
-        );
-        
-        BatchingRabbitTemplate template = new BatchingRabbitTemplate(
-                batchingStrategy, taskScheduler
-        );
-        template.setConnectionFactory(connectionFactory);
-        template.setMessageConverter(new Jackson2JsonMessageConverter());
-        
-        return template;
+    public MessagePostProcessor voucherCompressor() {
+        if (MessageCompression.NONE.equals(compression)) {
+            return message -> message;
+        }
+        return new MeteredCompressionPostProcessor(
+                MessageCompression.compressor(compression, compressionLevel), compression,
+                MeteredCompressionPostProcessor.COMPRESS, compressionMinBytes, metrics);
+    }
+    
+    /**
+     * Creates the post processor that decompresses received messages by content-encoding
+     * (gzip, zip, deflate, lz4, zstd). Uncompressed messages pass through unchanged, so it is
+     * installed whether or not this instance publishes compressed batches
+     * @return The decompressing post processor
+     */
+    @Bean
+    public MessagePostProcessor voucherDecompressor() {
+        return new MeteredCompressionPostProcessor(MessageCompression.decompressor(), MessageCompression.NONE,
+                MeteredCompressionPostProcessor.DECOMPRESS, 0, metrics);
+    }
+    
+    /**
+     * Installs the decompressor on containers created by Spring Boot's default listener factory
+     * (the single-message DebitVoucherConsumer shares the queue with the batch listener)
+     * @param voucherDecompressor The decompressing post processor
+     * @return The container customizer
+     */
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> decompressingContainerCustomizer(
+            @Qualifier("voucherDecompressor") MessagePostProcessor voucherDecompressor) {
+        return container -> container.setAfterReceivePostProcessors(voucherDecompressor);
     }
     
     /**
@@ -72,7 +106,10 @@ public class BatchConsumerConfig {
     public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(ConnectionFactory connectionFactory) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(new Jackson2JsonMessageConverter());
+        factory.setMessageConverter(voucherMessageConverter);
+        
+        // Decompress before the batch is split into individual messages
+        factory.setAfterReceivePostProcessors(voucherDecompressor());
         
         // Configure batch processing
         factory.setBatchListener(true);
@@ -83,12 +120,16 @@ public class BatchConsumerConfig {
         // Use virtual threads for message processing
         factory.setTaskExecutor(taskExecutor);
         
-        // Configure acknowledgment mode
-        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        // Configure acknowledgment mode. In MANUAL mode the bulk consumers ack a batch only
+        // after it has been committed, so unprocessed messages survive a crash
+        factory.setAcknowledgeMode(acknowledgeMode);
         
         // Configure prefetch count (how many messages to fetch at once)
         factory.setPrefetchCount(batchSize * 2);
         
+        // Disabled for benchmarks and tools that need the context but not a broker connection
+        factory.setAutoStartup(autoStartup);
+        
         return factory;
     }
 } 
\ No newline at end of file
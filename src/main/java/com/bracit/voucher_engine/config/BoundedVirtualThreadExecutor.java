@@ -0,0 +1,160 @@
+package com.bracit.voucher_engine.config;
+
+import com.bracit.voucher_engine.dto.ExecutorStats;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor that runs each task on its own virtual thread but allows at most maxConcurrency
+ * tasks to run at once. Submitting blocks the caller until a permit is free, which pushes
+ * back on whoever produces the work (e.g. RabbitMQ listener threads) instead of queueing
+ * an unbounded number of tasks in front of the connection pool.
+ *
+ * A task submitted from inside another task of this executor runs inline on the submitting
+ * thread: it already holds a permit, and waiting for a second one could deadlock.
+ */
+public class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final ExecutorService delegate;
+    private final ThreadLocal<Boolean> holdsPermit = new ThreadLocal<>();
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder inlineExecutions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public BoundedVirtualThreadExecutor(String namePrefix, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (Boolean.TRUE.equals(holdsPermit.get())) {
+            inlineExecutions.increment();
+            task.run();
+            return;
+        }
+
+        acquirePermit();
+        try {
+            delegate.execute(() -> {
+                holdsPermit.set(Boolean.TRUE);
+                try {
+                    task.run();
+                } finally {
+                    holdsPermit.remove();
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() {
+        long start = System.nanoTime();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for an executor permit", e);
+        }
+        long waited = System.nanoTime() - start;
+        acquisitions.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    /**
+     * @return The maximum number of tasks allowed to run at the same time
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return The number of tasks currently running
+     */
+    public int getPermitsInUse() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * @return The approximate number of submitters blocked waiting for a permit
+     */
+    public int getWaitingSubmitters() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * @return Total time submitters have spent waiting for a permit, in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    /**
+     * @return Number of permits handed out since startup
+     */
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Get the current executor statistics
+     * @return Permits in use, waiting submitters and permit wait times
+     */
+    public ExecutorStats getStats() {
+        long count = acquisitions.sum();
+        return ExecutorStats.builder()
+                .maxConcurrency(maxConcurrency)
+                .permitsInUse(getPermitsInUse())
+                .waitingSubmitters(getWaitingSubmitters())
+                .completedAcquisitions(count)
+                .inlineExecutions(inlineExecutions.sum())
+                .averageWaitMs(count > 0 ? totalWaitNanos.sum() / 1_000_000.0 / count : 0)
+                .maxWaitMs(maxWaitNanos.get() / 1_000_000.0)
+                .build();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
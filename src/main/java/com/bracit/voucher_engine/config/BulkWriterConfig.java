@@ -0,0 +1,144 @@
+package com.bracit.voucher_engine.config;
+
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.repository.CreditVoucherRepository;
+import com.bracit.voucher_engine.repository.DebitVoucherRepository;
+import com.bracit.voucher_engine.service.CreditVoucherService;
+import com.bracit.voucher_engine.service.DebitVoucherService;
+import com.bracit.voucher_engine.service.VoucherBulkWriter;
+import com.bracit.voucher_engine.service.VoucherNumberFilter;
+import com.bracit.voucher_engine.service.VoucherPipelineMetrics;
+import com.bracit.voucher_engine.service.VoucherService;
+import com.bracit.voucher_engine.service.impl.DeduplicatingVoucherBulkWriter;
+import com.bracit.voucher_engine.service.impl.JpaVoucherBulkWriter;
+import com.bracit.voucher_engine.service.impl.PostgresCopyVoucherBulkWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Selects the VoucherBulkWriter used by the bulk consumers, one per voucher type.
+ * app.bulk-writer.mode is one of:
+ * - auto: COPY on PostgreSQL, JPA batching everywhere else (default)
+ * - copy: always use PostgreSQL COPY
+ * - jpa: always use JPA batching
+ * Unless app.dedupe.enabled is false, the writer is wrapped so that duplicate voucher numbers
+ * are skipped instead of failing the batch.
+ * These are the only VoucherBulkWriter beans; users inject them as a list and pick one by getType().
+ */
+@Slf4j
+@Configuration
+public class BulkWriterConfig {
+
+    @Value("${app.bulk-writer.mode:auto}")
+    private String mode;
+
+    @Value("${app.dedupe.enabled:true}")
+    private boolean dedupeEnabled;
+
+    @Value("${app.dedupe.expected-vouchers:10000000}")
+    private long expectedVouchers;
+
+    @Value("${app.dedupe.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.voucher-events.enabled:true}")
+    private boolean voucherEventsEnabled;
+
+    /**
+     * Creates the bulk writer used for bulk ingestion of debit vouchers
+     * @param dataSource The application data source
+     * @param jdbcTemplate JDBC template used by the COPY writer
+     * @param transactionTemplate Transaction each COPY write runs in
+     * @param debitVoucherService Service used by the JPA writer
+     * @param debitVoucherNumberFilter Filter used to skip voucher numbers that are already stored
+     * @return The VoucherBulkWriter to use for bulk ingestion of debit vouchers
+     */
+    @Bean
+    public VoucherBulkWriter debitVoucherBulkWriter(DataSource dataSource,
+                                                    JdbcTemplate jdbcTemplate,
+                                                    TransactionTemplate transactionTemplate,
+                                                    DebitVoucherService debitVoucherService,
+                                                    @Qualifier("debitVoucherNumberFilter") VoucherNumberFilter debitVoucherNumberFilter) {
+        return deduplicating(createWriter(dataSource, jdbcTemplate, transactionTemplate, debitVoucherService),
+                debitVoucherNumberFilter);
+    }
+
+    /**
+     * Creates the bulk writer used for bulk ingestion of credit vouchers
+     * @param dataSource The application data source
+     * @param jdbcTemplate JDBC template used by the COPY writer
+     * @param transactionTemplate Transaction each COPY write runs in
+     * @param creditVoucherService Service used by the JPA writer
+     * @param creditVoucherNumberFilter Filter used to skip voucher numbers that are already stored
+     * @return The VoucherBulkWriter to use for bulk ingestion of credit vouchers
+     */
+    @Bean
+    public VoucherBulkWriter creditVoucherBulkWriter(DataSource dataSource,
+                                                     JdbcTemplate jdbcTemplate,
+                                                     TransactionTemplate transactionTemplate,
+                                                     CreditVoucherService creditVoucherService,
+                                                     @Qualifier("creditVoucherNumberFilter") VoucherNumberFilter creditVoucherNumberFilter) {
+        return deduplicating(createWriter(dataSource, jdbcTemplate, transactionTemplate, creditVoucherService),
+                creditVoucherNumberFilter);
+    }
+
+    @Bean
+    public VoucherNumberFilter debitVoucherNumberFilter(DebitVoucherRepository debitVoucherRepository,
+                                                        VoucherPipelineMetrics metrics,
+                                                        @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor) {
+        return new VoucherNumberFilter(debitVoucherRepository, VoucherType.DEBIT, metrics, virtualThreadExecutor,
+                expectedVouchers, falsePositiveRate);
+    }
+
+    @Bean
+    public VoucherNumberFilter creditVoucherNumberFilter(CreditVoucherRepository creditVoucherRepository,
+                                                         VoucherPipelineMetrics metrics,
+                                                         @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor) {
+        return new VoucherNumberFilter(creditVoucherRepository, VoucherType.CREDIT, metrics, virtualThreadExecutor,
+                expectedVouchers, falsePositiveRate);
+    }
+
+    private VoucherBulkWriter deduplicating(VoucherBulkWriter writer, VoucherNumberFilter voucherNumberFilter) {
+        return dedupeEnabled ? new DeduplicatingVoucherBulkWriter(writer, voucherNumberFilter) : writer;
+    }
+
+    /**
+     * Creates the writer matching the configured mode and the connected database
+     */
+    private VoucherBulkWriter createWriter(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                                           TransactionTemplate transactionTemplate, VoucherService<?> voucherService) {
+        boolean useCopy = switch (mode.toLowerCase()) {
+            case "copy" -> true;
+            case "jpa" -> false;
+            case "auto" -> isPostgres(dataSource);
+            default -> throw new IllegalArgumentException("Unknown app.bulk-writer.mode: " + mode);
+        };
+
+        VoucherType type = voucherService.getVoucherType();
+        log.info("Using {} bulk voucher writer for {} vouchers", useCopy ? "COPY" : "JPA", type);
+        return useCopy
+                ? new PostgresCopyVoucherBulkWriter(jdbcTemplate, transactionTemplate, type, voucherEventsEnabled)
+                : new JpaVoucherBulkWriter(voucherService);
+    }
+
+    private boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equalsIgnoreCase(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not detect database product, falling back to JPA bulk writer: {}", e.getMessage());
+            return false;
+        }
+    }
+}
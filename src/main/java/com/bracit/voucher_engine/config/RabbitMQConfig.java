@@ -1,10 +1,12 @@
 package com.bracit.voucher_engine.config;
 
+import com.bracit.voucher_engine.messaging.VoucherMessageConverter;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,14 +16,32 @@ public class RabbitMQConfig {
     // Queue names
     public static final String VOUCHER_QUEUE = "voucher.queue";
     public static final String DEBIT_VOUCHER_QUEUE = "debit.voucher.queue";
+    public static final String DEBIT_VOUCHER_DLQ = "debit.voucher.dlq";
+    public static final String CREDIT_VOUCHER_QUEUE = "credit.voucher.queue";
+    public static final String CREDIT_VOUCHER_DLQ = "credit.voucher.dlq";
     
     // Exchange names
     public static final String VOUCHER_EXCHANGE = "voucher.exchange";
     public static final String DEBIT_VOUCHER_EXCHANGE = "debit.voucher.exchange";
+    public static final String DEBIT_VOUCHER_DLX = "debit.voucher.dlx";
+    public static final String CREDIT_VOUCHER_EXCHANGE = "credit.voucher.exchange";
+    public static final String CREDIT_VOUCHER_DLX = "credit.voucher.dlx";
+    // Voucher change events (routing key <type>.<event>, e.g. debit.approved); subscribers bind their own queues
+    public static final String VOUCHER_EVENTS_EXCHANGE = "voucher.events.exchange";
     
     // Routing keys
     public static final String VOUCHER_ROUTING_KEY = "voucher.routingkey";
     public static final String DEBIT_VOUCHER_ROUTING_KEY = "debit.voucher.routingkey";
+    public static final String DEBIT_VOUCHER_DLQ_ROUTING_KEY = "debit.voucher.dead";
+    public static final String CREDIT_VOUCHER_ROUTING_KEY = "credit.voucher.routingkey";
+    public static final String CREDIT_VOUCHER_DLQ_ROUTING_KEY = "credit.voucher.dead";
+    
+    // Publish time in epoch milliseconds, for end-to-end latency; the AMQP timestamp property only has seconds
+    public static final String HEADER_PUBLISHED_AT = "x-published-at-ms";
+
+    // Headers added to dead-lettered messages
+    public static final String HEADER_EXCEPTION_MESSAGE = "x-exception-message";
+    public static final String HEADER_ORIGINAL_QUEUE = "x-original-queue";
 
     @Bean
     public Queue voucherQueue() {
@@ -33,6 +53,21 @@ public class RabbitMQConfig {
         return new Queue(DEBIT_VOUCHER_QUEUE, true);
     }
 
+    @Bean
+    public Queue debitVoucherDeadLetterQueue() {
+        return new Queue(DEBIT_VOUCHER_DLQ, true);
+    }
+
+    @Bean
+    public Queue creditVoucherQueue() {
+        return new Queue(CREDIT_VOUCHER_QUEUE, true);
+    }
+
+    @Bean
+    public Queue creditVoucherDeadLetterQueue() {
+        return new Queue(CREDIT_VOUCHER_DLQ, true);
+    }
+
     @Bean
     public TopicExchange voucherExchange() {
         return new TopicExchange(VOUCHER_EXCHANGE);
@@ -43,6 +78,26 @@ public class RabbitMQConfig {
         return new TopicExchange(DEBIT_VOUCHER_EXCHANGE);
     }
 
+    @Bean
+    public DirectExchange debitVoucherDeadLetterExchange() {
+        return new DirectExchange(DEBIT_VOUCHER_DLX);
+    }
+
+    @Bean
+    public TopicExchange creditVoucherExchange() {
+        return new TopicExchange(CREDIT_VOUCHER_EXCHANGE);
+    }
+
+    @Bean
+    public DirectExchange creditVoucherDeadLetterExchange() {
+        return new DirectExchange(CREDIT_VOUCHER_DLX);
+    }
+
+    @Bean
+    public TopicExchange voucherEventsExchange() {
+        return new TopicExchange(VOUCHER_EVENTS_EXCHANGE);
+    }
+
     @Bean
     public Binding voucherBinding(Queue voucherQueue, TopicExchange voucherExchange) {
         return BindingBuilder
@@ -60,14 +115,50 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public Binding debitVoucherDeadLetterBinding(Queue debitVoucherDeadLetterQueue, DirectExchange debitVoucherDeadLetterExchange) {
+        return BindingBuilder
+                .bind(debitVoucherDeadLetterQueue)
+                .to(debitVoucherDeadLetterExchange)
+                .with(DEBIT_VOUCHER_DLQ_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding creditVoucherBinding(Queue creditVoucherQueue, TopicExchange creditVoucherExchange) {
+        return BindingBuilder
+                .bind(creditVoucherQueue)
+                .to(creditVoucherExchange)
+                .with(CREDIT_VOUCHER_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding creditVoucherDeadLetterBinding(Queue creditVoucherDeadLetterQueue, DirectExchange creditVoucherDeadLetterExchange) {
+        return BindingBuilder
+                .bind(creditVoucherDeadLetterQueue)
+                .to(creditVoucherDeadLetterExchange)
+                .with(CREDIT_VOUCHER_DLQ_ROUTING_KEY);
+    }
+
+    /**
+     * Shared converter for every template and listener container. Reads both JSON and the binary
+     * voucher format; app.messaging.wire-format selects what voucher messages are published as.
+     * Switch to binary only once every consumer runs a version that can read it
+     * @param wireFormat json or binary
+     * @return The message converter
+     */
+    @Bean
+    public MessageConverter voucherMessageConverter(@Value("${app.messaging.wire-format:json}") String wireFormat) {
+        return new VoucherMessageConverter(new Jackson2JsonMessageConverter(), "binary".equalsIgnoreCase(wireFormat));
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter voucherMessageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        rabbitTemplate.setMessageConverter(voucherMessageConverter);
+        // Unroutable messages come back to the publisher (spring.rabbitmq.publisher-returns) and are
+        // reported on the CorrelationData passed to send; ConfirmingVoucherPublisher retries them
+        rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setReturnsCallback(returned -> {
+        });
         return rabbitTemplate;
     }
 } 
\ No newline at end of file
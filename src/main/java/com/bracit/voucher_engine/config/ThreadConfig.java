@@ -6,6 +6,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -16,11 +17,18 @@ import java.util.concurrent.Executors;
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class ThreadConfig {
 
     @Value("${app.virtual-threads.max-pool-size:1000}")
     private int maxPoolSize;
 
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    @Value("${app.db-write.reserved-connections:4}")
+    private int reservedConnections;
+
     /**
      * Creates a virtual thread executor for general-purpose async operations.
      * Virtual threads are lightweight and managed by the JVM, allowing for high concurrency
@@ -45,16 +53,16 @@ public class ThreadConfig {
     }
 
     /**
-     * Creates a bounded virtual thread executor for operations that need controlled concurrency.
-     * This executor limits the number of concurrent tasks to prevent resource exhaustion.
+     * Creates a bounded virtual thread executor for database writes.
+     * Concurrency is capped at the connection pool size minus app.db-write.reserved-connections,
+     * so bulk writers never queue up in getConnection and some connections stay free for
+     * request handling. Submitters block while all permits are taken.
      *
-     * @return An ExecutorService with bounded concurrency
+     * @return A BoundedVirtualThreadExecutor sized from the connection pool
      */
     @Bean(name = "boundedVirtualThreadExecutor")
-    public ExecutorService boundedVirtualThreadExecutor() {
-        // For operations that need controlled concurrency
-        return Executors.newThreadPerTaskExecutor(
-                Thread.ofVirtual().name("bounded-virtual-", 0).factory()
-        );
+    public BoundedVirtualThreadExecutor boundedVirtualThreadExecutor() {
+        int maxConcurrency = Math.max(1, connectionPoolSize - reservedConnections);
+        return new BoundedVirtualThreadExecutor("bounded-virtual-", maxConcurrency);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.bracit.voucher_engine.controller;
+
+import com.bracit.voucher_engine.dto.AccountBalanceDto;
+import com.bracit.voucher_engine.service.AccountBalanceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/accounts")
+public class AccountController {
+
+    private final AccountBalanceService accountBalanceService;
+
+    @Autowired
+    public AccountController(AccountBalanceService accountBalanceService) {
+        this.accountBalanceService = accountBalanceService;
+    }
+
+    @GetMapping("/{account}/balance")
+    public ResponseEntity<AccountBalanceDto> getBalance(
+            @PathVariable String account,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        return ResponseEntity.ok(accountBalanceService.getBalance(account, asOf != null ? asOf : LocalDate.now()));
+    }
+}
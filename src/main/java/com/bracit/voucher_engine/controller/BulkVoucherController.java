@@ -0,0 +1,134 @@
+package com.bracit.voucher_engine.controller;
+
+import com.bracit.voucher_engine.config.BoundedVirtualThreadExecutor;
+import com.bracit.voucher_engine.dto.BulkJobStatus;
+import com.bracit.voucher_engine.dto.CreditVoucherMessage;
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.dto.ExecutorStats;
+import com.bracit.voucher_engine.dto.ListenerTuningDecision;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.service.AbstractBulkVoucherConsumer;
+import com.bracit.voucher_engine.service.AdaptiveListenerTuner;
+import com.bracit.voucher_engine.service.BulkVoucherJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/bulk-vouchers")
+public class BulkVoucherController {
+
+    private final AdaptiveListenerTuner listenerTuner;
+    private final BoundedVirtualThreadExecutor dbWriteExecutor;
+    private final BulkVoucherJobService jobService;
+    private final Map<VoucherType, AbstractBulkVoucherConsumer<?>> consumers;
+
+    @Autowired
+    public BulkVoucherController(AdaptiveListenerTuner listenerTuner,
+                                 BoundedVirtualThreadExecutor dbWriteExecutor,
+                                 BulkVoucherJobService jobService,
+                                 List<AbstractBulkVoucherConsumer<?>> bulkConsumers) {
+        this.listenerTuner = listenerTuner;
+        this.dbWriteExecutor = dbWriteExecutor;
+        this.jobService = jobService;
+        this.consumers = VoucherType.index(bulkConsumers, AbstractBulkVoucherConsumer::getType);
+    }
+
+    @PostMapping("/generate")
+    public ResponseEntity<BulkJobStatus> generateVouchers(
+            @RequestParam long count,
+            @RequestParam(defaultValue = "100") int batchSize,
+            @RequestParam(defaultValue = "4") int threadCount,
+            @RequestParam(defaultValue = "DEBIT") VoucherType type,
+            @RequestParam(required = false) Long startIndex) {
+        if (count <= 0 || batchSize <= 0 || threadCount <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "count, batchSize and threadCount must be positive");
+        }
+        if (startIndex != null && startIndex < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startIndex must not be negative");
+        }
+        return accepted(jobService.startGeneration(type, count, batchSize, threadCount, startIndex));
+    }
+
+    @PostMapping("/ingest")
+    public ResponseEntity<BulkJobStatus> ingestVouchers(@RequestBody List<DebitVoucherMessage> vouchers) {
+        return accepted(jobService.startIngestion(VoucherType.DEBIT, vouchers));
+    }
+
+    @PostMapping("/ingest/credit")
+    public ResponseEntity<BulkJobStatus> ingestCreditVouchers(@RequestBody List<CreditVoucherMessage> vouchers) {
+        return accepted(jobService.startIngestion(VoucherType.CREDIT, vouchers));
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<BulkJobStatus>> getJobs() {
+        return ResponseEntity.ok(jobService.getJobs());
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<BulkJobStatus> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(jobService.getJob(id));
+    }
+
+    @PostMapping("/jobs/{id}/cancel")
+    public ResponseEntity<BulkJobStatus> cancelJob(@PathVariable String id) {
+        return ResponseEntity.ok(jobService.cancelJob(id));
+    }
+
+    @GetMapping("/consumer/stats")
+    public ResponseEntity<String> getConsumerStats(@RequestParam(defaultValue = "DEBIT") VoucherType type) {
+        return ResponseEntity.ok(consumer(type).getProcessingStats());
+    }
+
+    @PostMapping("/consumer/reset-stats")
+    public ResponseEntity<Void> resetConsumerStats(@RequestParam(defaultValue = "DEBIT") VoucherType type) {
+        consumer(type).resetStats();
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/consumer/pause")
+    public ResponseEntity<Map<String, Boolean>> pauseConsumer(@RequestParam(defaultValue = "DEBIT") VoucherType type) {
+        AbstractBulkVoucherConsumer<?> consumer = consumer(type);
+        consumer.pauseListeners();
+        return ResponseEntity.ok(Map.of("listening", consumer.isListening()));
+    }
+
+    @PostMapping("/consumer/resume")
+    public ResponseEntity<Map<String, Boolean>> resumeConsumer(@RequestParam(defaultValue = "DEBIT") VoucherType type) {
+        AbstractBulkVoucherConsumer<?> consumer = consumer(type);
+        consumer.resumeListeners();
+        return ResponseEntity.ok(Map.of("listening", consumer.isListening()));
+    }
+
+    @GetMapping("/consumer/tuning")
+    public ResponseEntity<ListenerTuningDecision> getCurrentTuning() {
+        ListenerTuningDecision decision = listenerTuner.getCurrentDecision();
+        return decision != null ? ResponseEntity.ok(decision) : ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/consumer/tuning/history")
+    public ResponseEntity<List<ListenerTuningDecision>> getTuningHistory() {
+        return ResponseEntity.ok(listenerTuner.getRecentDecisions());
+    }
+
+    @GetMapping("/db-executor/stats")
+    public ResponseEntity<ExecutorStats> getDbExecutorStats() {
+        return ResponseEntity.ok(dbWriteExecutor.getStats());
+    }
+
+    private AbstractBulkVoucherConsumer<?> consumer(VoucherType type) {
+        return consumers.get(type);
+    }
+
+    private ResponseEntity<BulkJobStatus> accepted(BulkJobStatus job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/bulk-vouchers/jobs/" + job.getId()))
+                .body(job);
+    }
+}
@@ -0,0 +1,193 @@
+package com.bracit.voucher_engine.controller;
+
+import com.bracit.voucher_engine.dto.BulkDecisionResult;
+import com.bracit.voucher_engine.dto.BulkIngestResult;
+import com.bracit.voucher_engine.dto.CreditVoucherDto;
+import com.bracit.voucher_engine.dto.CursorPage;
+import com.bracit.voucher_engine.dto.VoucherSummary;
+import com.bracit.voucher_engine.dto.VoucherVersion;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.service.CreditVoucherService;
+import com.bracit.voucher_engine.service.VoucherBulkImporter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/credit-vouchers")
+public class CreditVoucherController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final CreditVoucherService creditVoucherService;
+    private final VoucherBulkImporter voucherBulkImporter;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CreditVoucherController(CreditVoucherService creditVoucherService,
+                                   VoucherBulkImporter voucherBulkImporter,
+                                   ObjectMapper objectMapper) {
+        this.creditVoucherService = creditVoucherService;
+        this.voucherBulkImporter = voucherBulkImporter;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping
+    public ResponseEntity<CreditVoucherDto> createVoucher(@RequestBody CreditVoucherDto voucherDto) {
+        return new ResponseEntity<>(creditVoucherService.createVoucher(voucherDto), HttpStatus.CREATED);
+    }
+
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON}, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> createVouchersBulk(HttpServletRequest request) throws IOException {
+        // The body is read while the results are written, so neither side is held in memory
+        InputStream input = request.getInputStream();
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            voucherBulkImporter.importVouchers(VoucherType.CREDIT, input, (BulkIngestResult result) -> {
+                try {
+                    writer.writeValue(outputStream, result);
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CreditVoucherDto> getVoucherById(@PathVariable Long id) {
+        return ResponseEntity.ok(creditVoucherService.getVoucherById(id));
+    }
+
+    @GetMapping("/number/{voucherNumber}")
+    public ResponseEntity<CreditVoucherDto> getVoucherByNumber(@PathVariable String voucherNumber) {
+        return ResponseEntity.ok(creditVoucherService.getVoucherByNumber(voucherNumber));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CreditVoucherDto>> getAllVouchers() {
+        return ResponseEntity.ok(creditVoucherService.getAllVouchers());
+    }
+
+    @GetMapping("/status/{status}")
+    public ResponseEntity<List<CreditVoucherDto>> getVouchersByStatus(@PathVariable VoucherStatus status) {
+        return ResponseEntity.ok(creditVoucherService.getVouchersByStatus(status));
+    }
+
+    @GetMapping("/date-range")
+    public ResponseEntity<List<CreditVoucherDto>> getVouchersByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(creditVoucherService.getVouchersByDateRange(startDate, endDate));
+    }
+
+    @GetMapping("/summaries/status/{status}")
+    public ResponseEntity<CursorPage<VoucherSummary>> getVoucherSummariesByStatus(
+            @PathVariable VoucherStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(creditVoucherService.getVoucherSummariesByStatus(status, cursor, size));
+    }
+
+    @GetMapping("/summaries/created-by/{createdBy}")
+    public ResponseEntity<CursorPage<VoucherSummary>> getVoucherSummariesByCreatedBy(
+            @PathVariable String createdBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(creditVoucherService.getVoucherSummariesByCreatedBy(createdBy, cursor, size));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<CreditVoucherDto> updateVoucher(
+            @PathVariable Long id,
+            @RequestBody CreditVoucherDto voucherDto) {
+        return ResponseEntity.ok(creditVoucherService.updateVoucher(id, voucherDto));
+    }
+
+    @PutMapping("/{id}/submit")
+    public ResponseEntity<CreditVoucherDto> submitVoucher(
+            @PathVariable Long id,
+            @RequestParam(required = false) String submittedBy,
+            @RequestParam(required = false) Long version) {
+        return ResponseEntity.ok(creditVoucherService.transitionVoucher(id, VoucherStatus.PENDING_APPROVAL, submittedBy, version));
+    }
+
+    @PutMapping("/{id}/approve")
+    public ResponseEntity<CreditVoucherDto> approveVoucher(
+            @PathVariable Long id,
+            @RequestParam String approvedBy,
+            @RequestParam(required = false) Long version) {
+        return ResponseEntity.ok(creditVoucherService.transitionVoucher(id, VoucherStatus.APPROVED, approvedBy, version));
+    }
+
+    @PutMapping("/{id}/reject")
+    public ResponseEntity<CreditVoucherDto> rejectVoucher(
+            @PathVariable Long id,
+            @RequestParam String rejectedBy,
+            @RequestParam(required = false) Long version) {
+        return ResponseEntity.ok(creditVoucherService.transitionVoucher(id, VoucherStatus.REJECTED, rejectedBy, version));
+    }
+
+    @PutMapping("/{id}/cancel")
+    public ResponseEntity<CreditVoucherDto> cancelVoucher(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cancelledBy,
+            @RequestParam(required = false) Long version) {
+        return ResponseEntity.ok(creditVoucherService.transitionVoucher(id, VoucherStatus.CANCELLED, cancelledBy, version));
+    }
+
+    @PutMapping("/approve")
+    public ResponseEntity<BulkDecisionResult> approveVouchers(
+            @RequestParam String approvedBy,
+            @RequestBody List<VoucherVersion> vouchers) {
+        return ResponseEntity.ok(creditVoucherService.approveVouchers(vouchers, approvedBy));
+    }
+
+    @PutMapping("/reject")
+    public ResponseEntity<BulkDecisionResult> rejectVouchers(
+            @RequestParam String rejectedBy,
+            @RequestBody List<VoucherVersion> vouchers) {
+        return ResponseEntity.ok(creditVoucherService.rejectVouchers(vouchers, rejectedBy));
+    }
+
+    @PutMapping("/approve/date-range")
+    public ResponseEntity<BulkDecisionResult> approveVouchersByDateRange(
+            @RequestParam String approvedBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(creditVoucherService.approveVouchersByDateRange(startDate, endDate, approvedBy));
+    }
+
+    @PutMapping("/reject/date-range")
+    public ResponseEntity<BulkDecisionResult> rejectVouchersByDateRange(
+            @RequestParam String rejectedBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(creditVoucherService.rejectVouchersByDateRange(startDate, endDate, rejectedBy));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteVoucher(@PathVariable Long id) {
+        creditVoucherService.deleteVoucher(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,31 +1,92 @@
 package com.bracit.voucher_engine.controller;
 
+import com.bracit.voucher_engine.dto.BulkDecisionResult;
+import com.bracit.voucher_engine.dto.BulkIngestResult;
+import com.bracit.voucher_engine.dto.CursorPage;
 import com.bracit.voucher_engine.dto.DebitVoucherDto;
+import com.bracit.voucher_engine.dto.VoucherCacheStats;
+import com.bracit.voucher_engine.dto.VoucherSummary;
+import com.bracit.voucher_engine.dto.VoucherVersion;
 import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.service.DebitVoucherCache;
 import com.bracit.voucher_engine.service.DebitVoucherService;
+import com.bracit.voucher_engine.service.VoucherBulkImporter;
+import com.bracit.voucher_engine.service.VoucherWriteBehindBuffer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/debit-vouchers")
 public class DebitVoucherController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final DebitVoucherService debitVoucherService;
+    private final VoucherWriteBehindBuffer writeBehindBuffer;
+    private final DebitVoucherCache voucherCache;
+    private final VoucherBulkImporter voucherBulkImporter;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public DebitVoucherController(DebitVoucherService debitVoucherService) {
+    public DebitVoucherController(DebitVoucherService debitVoucherService,
+                                  VoucherWriteBehindBuffer writeBehindBuffer,
+                                  DebitVoucherCache voucherCache,
+                                  VoucherBulkImporter voucherBulkImporter,
+                                  ObjectMapper objectMapper) {
         this.debitVoucherService = debitVoucherService;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.voucherCache = voucherCache;
+        this.voucherBulkImporter = voucherBulkImporter;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
-    public ResponseEntity<DebitVoucherDto> createVoucher(@RequestBody DebitVoucherDto voucherDto) {
-        return new ResponseEntity<>(debitVoucherService.createVoucher(voucherDto), HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<DebitVoucherDto>> createVoucher(@RequestBody DebitVoucherDto voucherDto) {
+        if (writeBehindBuffer.isEnabled()) {
+            // Completed once the voucher's group commit succeeds; the request thread is released meanwhile
+            return writeBehindBuffer.submit(voucherDto)
+                    .thenApply(saved -> new ResponseEntity<>(saved, HttpStatus.CREATED));
+        }
+        return CompletableFuture.completedFuture(
+                new ResponseEntity<>(debitVoucherService.createVoucher(voucherDto), HttpStatus.CREATED));
+    }
+
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON}, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> createVouchersBulk(HttpServletRequest request) throws IOException {
+        // The body is read while the results are written, so neither side is held in memory
+        InputStream input = request.getInputStream();
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            voucherBulkImporter.importVouchers(input, (BulkIngestResult result) -> {
+                try {
+                    writer.writeValue(outputStream, result);
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
     @GetMapping("/{id}")
@@ -55,6 +116,61 @@ public class DebitVoucherController {
         return ResponseEntity.ok(debitVoucherService.getVouchersByDateRange(startDate, endDate));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<DebitVoucherDto>> getVouchersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) VoucherStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateDateRange(startDate, endDate);
+        return ResponseEntity.ok(debitVoucherService.getVouchersPage(cursor, size, status, startDate, endDate));
+    }
+
+    @GetMapping("/summaries/status/{status}")
+    public ResponseEntity<CursorPage<VoucherSummary>> getVoucherSummariesByStatus(
+            @PathVariable VoucherStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(debitVoucherService.getVoucherSummariesByStatus(status, cursor, size));
+    }
+
+    @GetMapping("/summaries/created-by/{createdBy}")
+    public ResponseEntity<CursorPage<VoucherSummary>> getVoucherSummariesByCreatedBy(
+            @PathVariable String createdBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(debitVoucherService.getVoucherSummariesByCreatedBy(createdBy, cursor, size));
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportVouchers(
+            @RequestParam(required = false) VoucherStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateDateRange(startDate, endDate);
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            debitVoucherService.exportVouchers(status, startDate, endDate, voucher -> {
+                try {
+                    writer.writeValue(outputStream, voucher);
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<VoucherCacheStats>> getCacheStats() {
+        return ResponseEntity.ok(voucherCache.getStats());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<DebitVoucherDto> updateVoucher(
             @PathVariable Long id,
@@ -62,18 +178,66 @@ public class DebitVoucherController {
         return ResponseEntity.ok(debitVoucherService.updateVoucher(id, voucherDto));
     }
 
+    @PutMapping("/{id}/submit")
+    public ResponseEntity<DebitVoucherDto> submitVoucher(
+            @PathVariable Long id,
+            @RequestParam(required = false) String submittedBy,
+            @RequestParam(required = false) Long version) {
+        return ResponseEntity.ok(debitVoucherService.transitionVoucher(id, VoucherStatus.PENDING_APPROVAL, submittedBy, version));
+    }
+
     @PutMapping("/{id}/approve")
     public ResponseEntity<DebitVoucherDto> approveVoucher(
             @PathVariable Long id,
-            @RequestParam String approvedBy) {
-        return ResponseEntity.ok(debitVoucherService.approveVoucher(id, approvedBy));
+            @RequestParam String approvedBy,
+            @RequestParam(required = false) Long version) {
+        return ResponseEntity.ok(debitVoucherService.transitionVoucher(id, VoucherStatus.APPROVED, approvedBy, version));
     }
 
     @PutMapping("/{id}/reject")
     public ResponseEntity<DebitVoucherDto> rejectVoucher(
             @PathVariable Long id,
-            @RequestParam String rejectedBy) {
-        return ResponseEntity.ok(debitVoucherService.rejectVoucher(id, rejectedBy));
+            @RequestParam String rejectedBy,
+            @RequestParam(required = false) Long version) {
+        return ResponseEntity.ok(debitVoucherService.transitionVoucher(id, VoucherStatus.REJECTED, rejectedBy, version));
+    }
+
+    @PutMapping("/{id}/cancel")
+    public ResponseEntity<DebitVoucherDto> cancelVoucher(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cancelledBy,
+            @RequestParam(required = false) Long version) {
+        return ResponseEntity.ok(debitVoucherService.transitionVoucher(id, VoucherStatus.CANCELLED, cancelledBy, version));
+    }
+
+    @PutMapping("/approve")
+    public ResponseEntity<BulkDecisionResult> approveVouchers(
+            @RequestParam String approvedBy,
+            @RequestBody List<VoucherVersion> vouchers) {
+        return ResponseEntity.ok(debitVoucherService.approveVouchers(vouchers, approvedBy));
+    }
+
+    @PutMapping("/reject")
+    public ResponseEntity<BulkDecisionResult> rejectVouchers(
+            @RequestParam String rejectedBy,
+            @RequestBody List<VoucherVersion> vouchers) {
+        return ResponseEntity.ok(debitVoucherService.rejectVouchers(vouchers, rejectedBy));
+    }
+
+    @PutMapping("/approve/date-range")
+    public ResponseEntity<BulkDecisionResult> approveVouchersByDateRange(
+            @RequestParam String approvedBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(debitVoucherService.approveVouchersByDateRange(startDate, endDate, approvedBy));
+    }
+
+    @PutMapping("/reject/date-range")
+    public ResponseEntity<BulkDecisionResult> rejectVouchersByDateRange(
+            @RequestParam String rejectedBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(debitVoucherService.rejectVouchersByDateRange(startDate, endDate, rejectedBy));
     }
 
     @DeleteMapping("/{id}")
@@ -81,4 +245,10 @@ public class DebitVoucherController {
         debitVoucherService.deleteVoucher(id);
         return ResponseEntity.noContent().build();
     }
+
+    private void validateDateRange(LocalDate startDate, LocalDate endDate) {
+        if ((startDate == null) != (endDate == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startDate and endDate must be given together");
+        }
+    }
 } 
\ No newline at end of file
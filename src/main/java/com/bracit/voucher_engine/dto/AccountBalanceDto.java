@@ -0,0 +1,25 @@
+package com.bracit.voucher_engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Balance of an account at the end of a day, from all vouchers approved on or before that day.
+ * balance is debitTotal - creditTotal
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceDto {
+    private String account;
+    private LocalDate asOf;
+    private BigDecimal debitTotal;
+    private BigDecimal creditTotal;
+    private BigDecimal balance;
+}
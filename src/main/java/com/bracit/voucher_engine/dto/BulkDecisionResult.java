@@ -0,0 +1,30 @@
+package com.bracit.voucher_engine.dto;
+
+import com.bracit.voucher_engine.model.VoucherStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk approval or rejection
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDecisionResult {
+    // APPROVED or REJECTED
+    private VoucherStatus status;
+    private long requested;
+    private long updated;
+    // Vouchers changed since the version the caller gave; left untouched
+    @Builder.Default
+    private List<Long> conflicts = new ArrayList<>();
+    // Vouchers that do not exist or are not pending approval
+    @Builder.Default
+    private List<Long> skipped = new ArrayList<>();
+}
@@ -0,0 +1,31 @@
+package com.bracit.voucher_engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one row of a bulk voucher upload, streamed back to the client in upload order
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIngestResult {
+
+    public enum Status {
+        // Committed, or already stored under the same voucher number
+        STORED,
+        // Rejected before reaching the database
+        INVALID,
+        // Rejected by the database, or its chunk could not be written while the database was unavailable
+        FAILED
+    }
+
+    // Zero-based position of the row in the upload
+    private long index;
+    private String voucherNumber;
+    private Status status;
+    private String error;
+}
@@ -0,0 +1,48 @@
+package com.bracit.voucher_engine.dto;
+
+import com.bracit.voucher_engine.model.VoucherType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time progress of an asynchronous bulk generation or ingestion job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJobStatus {
+
+    public enum Type {
+        GENERATE, INGEST
+    }
+
+    public enum State {
+        RUNNING, COMPLETED, CANCELLED, FAILED, TIMED_OUT
+    }
+
+    private String id;
+    private Type type;
+    private VoucherType voucherType;
+    private State state;
+    private boolean cancelRequested;
+    private Instant startedAt;
+    private Instant finishedAt;
+    
+    // Progress
+    private long requested;
+    // Index of the first generated voucher number (generation only)
+    private Long startIndex;
+    private long processed;
+    // Confirmed by the broker (generation) or stored in the database, new or already present (ingestion)
+    private long succeeded;
+    private long failed;
+    private double percentComplete;
+    private double ratePerSecond;
+    private Double etaSeconds;
+    private String error;
+}
@@ -0,0 +1,36 @@
+package com.bracit.voucher_engine.dto;
+
+import com.bracit.voucher_engine.model.VoucherType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of writing one batch of vouchers through a VoucherBulkWriter
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkWriteResult {
+    private String writer;
+    private VoucherType type;
+    private int requested;
+    private int written;
+    private long elapsedNanos;
+
+    /**
+     * @return Number of rows skipped because their voucher number already existed
+     */
+    public int getSkipped() {
+        return requested - written;
+    }
+
+    /**
+     * @return Rows written per second for this batch
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? written * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+}
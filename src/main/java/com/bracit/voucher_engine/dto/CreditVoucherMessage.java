@@ -0,0 +1,27 @@
+package com.bracit.voucher_engine.dto;
+
+import com.bracit.voucher_engine.model.VoucherStatus;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO for sending credit voucher messages via RabbitMQ
+ */
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@SuperBuilder
+@NoArgsConstructor
+public class CreditVoucherMessage extends VoucherMessage {
+
+    public CreditVoucherMessage(String voucherNumber, LocalDate voucherDate, BigDecimal amount, String description,
+                               String createdBy, LocalDate createdDate, VoucherStatus status,
+                               String debitAccount, String creditAccount) {
+        super(voucherNumber, voucherDate, amount, description, createdBy, createdDate, status,
+                debitAccount, creditAccount);
+    }
+}
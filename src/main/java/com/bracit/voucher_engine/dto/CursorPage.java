@@ -0,0 +1,55 @@
+package com.bracit.voucher_engine.dto;
+
+import com.bracit.voucher_engine.exception.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. nextCursor is an opaque token for the following
+ * page and is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    /**
+     * Encode the last id seen on a page as an opaque cursor token
+     * @param lastId The id of the last item on the page
+     * @return A URL-safe cursor token
+     */
+    public static String encodeCursor(long lastId) {
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(lastId).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Decode a cursor token produced by encodeCursor
+     * @param cursor The cursor token, or null/blank for the first page
+     * @return The id to continue after (0 for the first page)
+     */
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.bracit.voucher_engine.dto;
 
 import com.bracit.voucher_engine.model.VoucherStatus;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -12,18 +12,16 @@ import java.time.LocalDate;
 /**
  * DTO for sending debit voucher messages via RabbitMQ
  */
-@Data
-@Builder
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@SuperBuilder
 @NoArgsConstructor
-@AllArgsConstructor
-public class DebitVoucherMessage {
-    private String voucherNumber;
-    private LocalDate voucherDate;
-    private BigDecimal amount;
-    private String description;
-    private String createdBy;
-    private LocalDate createdDate;
-    private VoucherStatus status;
-    private String debitAccount;
-    private String creditAccount;
-} 
\ No newline at end of file
+public class DebitVoucherMessage extends VoucherMessage {
+
+    public DebitVoucherMessage(String voucherNumber, LocalDate voucherDate, BigDecimal amount, String description,
+                               String createdBy, LocalDate createdDate, VoucherStatus status,
+                               String debitAccount, String creditAccount) {
+        super(voucherNumber, voucherDate, amount, description, createdBy, createdDate, status,
+                debitAccount, creditAccount);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bracit.voucher_engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Point-in-time statistics of a bounded executor
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutorStats {
+    private int maxConcurrency;
+    private int permitsInUse;
+    private int waitingSubmitters;
+    private long completedAcquisitions;
+    private long inlineExecutions;
+    private double averageWaitMs;
+    private double maxWaitMs;
+}
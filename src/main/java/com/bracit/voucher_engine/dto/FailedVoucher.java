@@ -0,0 +1,16 @@
+package com.bracit.voucher_engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A voucher message that could not be persisted, together with the reason
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailedVoucher {
+    private VoucherMessage message;
+    private String error;
+}
@@ -0,0 +1,34 @@
+package com.bracit.voucher_engine.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A snapshot of the adaptive listener controller: what it observed and the container
+ * settings it applied as a result
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListenerTuningDecision {
+    private Instant timestamp;
+    private boolean enabled;
+    
+    // Observations
+    private long queueDepth;
+    private double consumeRatePerSecond;
+    private double lagSeconds;
+    private double avgCommitLatencyMs;
+    
+    // Applied settings
+    private int batchSize;
+    private int prefetchCount;
+    private int concurrentConsumers;
+    private long receiveTimeoutMs;
+    private String action;
+}
@@ -0,0 +1,16 @@
+package com.bracit.voucher_engine.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * The columns a bulk approval or rejection needs from each voucher: the version to check, what
+ * to post to the account balances and what its change event carries
+ */
+public record VoucherDecisionRow(
+        Long id,
+        String voucherNumber,
+        long version,
+        BigDecimal amount,
+        String debitAccount,
+        String creditAccount) {
+}
@@ -24,4 +24,6 @@ public class VoucherDto {
     private String approvedBy;
     private LocalDate approvedDate;
     private VoucherStatus status;
+    // Version the client last saw; updates with a stale version are rejected
+    private Long version;
 } 
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.bracit.voucher_engine.dto;
+
+import com.bracit.voucher_engine.model.VoucherEvent;
+import com.bracit.voucher_engine.model.VoucherEventType;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A voucher change as published on the voucher event exchange.
+ * Delivery is at least once: consumers skip eventIds they have already seen, and for one voucher
+ * a higher version is always the later change
+ */
+public record VoucherEventMessage(
+        long eventId,
+        VoucherEventType eventType,
+        VoucherType voucherType,
+        Long voucherId,
+        String voucherNumber,
+        VoucherStatus status,
+        long version,
+        BigDecimal amount,
+        String debitAccount,
+        String creditAccount,
+        String actor,
+        Instant occurredAt) {
+
+    public static VoucherEventMessage of(VoucherEvent event) {
+        return new VoucherEventMessage(event.getId(), event.getEventType(), event.getVoucherType(),
+                event.getVoucherId(), event.getVoucherNumber(), event.getStatus(), event.getVersion(),
+                event.getAmount(), event.getDebitAccount(), event.getCreditAccount(), event.getActor(),
+                event.getOccurredAt());
+    }
+
+    /**
+     * @return The routing key of the event, e.g. debit.approved, so consumers can bind to
+     * debit.#, *.approved or #
+     */
+    public String routingKey() {
+        return voucherType.name().toLowerCase() + "." + eventType.name().toLowerCase();
+    }
+}
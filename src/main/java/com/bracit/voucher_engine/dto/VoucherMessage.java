@@ -0,0 +1,30 @@
+package com.bracit.voucher_engine.dto;
+
+import com.bracit.voucher_engine.model.VoucherStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fields shared by the voucher messages sent via RabbitMQ. Debit and credit vouchers carry the
+ * same fields; the concrete class tells the pipeline which table a voucher belongs to
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public abstract class VoucherMessage {
+    private String voucherNumber;
+    private LocalDate voucherDate;
+    private BigDecimal amount;
+    private String description;
+    private String createdBy;
+    private LocalDate createdDate;
+    private VoucherStatus status;
+    private String debitAccount;
+    private String creditAccount;
+}
@@ -0,0 +1,20 @@
+package com.bracit.voucher_engine.dto;
+
+import com.bracit.voucher_engine.model.VoucherStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a voucher for list views. Repository methods returning it select
+ * only these columns and skip entity hydration and dirty tracking.
+ */
+public record VoucherSummary(
+        Long id,
+        String voucherNumber,
+        LocalDate voucherDate,
+        BigDecimal amount,
+        VoucherStatus status,
+        String debitAccount,
+        String creditAccount) {
+}
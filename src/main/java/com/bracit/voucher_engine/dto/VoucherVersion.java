@@ -0,0 +1,9 @@
+package com.bracit.voucher_engine.dto;
+
+/**
+ * A voucher to approve or reject in bulk
+ * @param id The voucher id
+ * @param version The version the caller last saw, or null to accept the current version
+ */
+public record VoucherVersion(Long id, Long version) {
+}
@@ -0,0 +1,12 @@
+package com.bracit.voucher_engine.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class BulkGenerationTimeoutException extends RuntimeException {
+
+    public BulkGenerationTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.bracit.voucher_engine.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class BulkJobLimitException extends RuntimeException {
+    
+    public BulkJobLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.bracit.voucher_engine.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InvalidStatusTransitionException extends RuntimeException {
+    
+    public InvalidStatusTransitionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.bracit.voucher_engine.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class VoucherConflictException extends RuntimeException {
+    
+    public VoucherConflictException(String message) {
+        super(message);
+    }
+    
+    public VoucherConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
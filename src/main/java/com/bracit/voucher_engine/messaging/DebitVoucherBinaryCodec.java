@@ -0,0 +1,288 @@
+package com.bracit.voucher_engine.messaging;
+
+import com.bracit.voucher_engine.dto.CreditVoucherMessage;
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.model.VoucherStatus;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Compact binary encoding of DebitVoucherMessage (content type CONTENT_TYPE). Credit vouchers use
+ * the same layout under CREDIT_CONTENT_TYPE, so the content type alone tells which class to decode.
+ *
+ * Layout, version 1:
+ * - version byte, then a flags byte marking which optional fields are present
+ * - voucherNumber, description, createdBy, debitAccount, creditAccount: varint (UTF-8 length + 1,
+ *   0 for null) followed by the bytes
+ * - voucherDate, createdDate: zigzag varint epoch day
+ * - amount: zigzag varint scale, then the unscaled value as a zigzag varint, or as
+ *   varint length + two's-complement bytes if it does not fit in a long
+ * - status: one byte ordinal. VoucherStatus constants must only ever be appended
+ *
+ * Field order is voucherNumber, voucherDate, amount, description, createdBy, createdDate,
+ * status, debitAccount, creditAccount. A typical voucher encodes to about a quarter of its JSON size
+ */
+public final class DebitVoucherBinaryCodec {
+
+    public static final String CONTENT_TYPE = "application/x-debit-voucher-v1";
+
+    public static final String CREDIT_CONTENT_TYPE = "application/x-credit-voucher-v1";
+
+    static final byte VERSION = 1;
+
+    private static final int HAS_VOUCHER_DATE = 1;
+    private static final int HAS_AMOUNT = 1 << 1;
+    private static final int HAS_CREATED_DATE = 1 << 2;
+    private static final int HAS_STATUS = 1 << 3;
+    private static final int WIDE_AMOUNT = 1 << 4;
+
+    private static final VoucherStatus[] STATUSES = VoucherStatus.values();
+
+    private DebitVoucherBinaryCodec() {
+    }
+
+    /**
+     * Encode a voucher message
+     * @param message The message to encode
+     * @return The encoded bytes
+     */
+    public static byte[] encode(VoucherMessage message) {
+        BigDecimal amount = message.getAmount();
+        boolean wideAmount = amount != null && amount.unscaledValue().bitLength() > 63;
+        int flags = (message.getVoucherDate() != null ? HAS_VOUCHER_DATE : 0)
+                | (amount != null ? HAS_AMOUNT : 0)
+                | (message.getCreatedDate() != null ? HAS_CREATED_DATE : 0)
+                | (message.getStatus() != null ? HAS_STATUS : 0)
+                | (wideAmount ? WIDE_AMOUNT : 0);
+
+        Output out = new Output(96);
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+        out.writeString(message.getVoucherNumber());
+        if (message.getVoucherDate() != null) {
+            out.writeSignedVarLong(message.getVoucherDate().toEpochDay());
+        }
+        if (amount != null) {
+            out.writeSignedVarLong(amount.scale());
+            if (wideAmount) {
+                byte[] unscaled = amount.unscaledValue().toByteArray();
+                out.writeVarLong(unscaled.length);
+                out.writeBytes(unscaled);
+            } else {
+                out.writeSignedVarLong(amount.unscaledValue().longValue());
+            }
+        }
+        out.writeString(message.getDescription());
+        out.writeString(message.getCreatedBy());
+        if (message.getCreatedDate() != null) {
+            out.writeSignedVarLong(message.getCreatedDate().toEpochDay());
+        }
+        if (message.getStatus() != null) {
+            out.writeByte(message.getStatus().ordinal());
+        }
+        out.writeString(message.getDebitAccount());
+        out.writeString(message.getCreditAccount());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a debit voucher message
+     * @param body The encoded bytes
+     * @return The decoded message
+     * @throws IllegalArgumentException if the bytes are not a valid version 1 voucher message
+     */
+    public static DebitVoucherMessage decode(byte[] body) {
+        return decode(body, DebitVoucherMessage::new);
+    }
+
+    /**
+     * @param message A voucher message
+     * @return The content type its binary encoding is published with
+     */
+    public static String contentTypeOf(VoucherMessage message) {
+        return message instanceof CreditVoucherMessage ? CREDIT_CONTENT_TYPE : CONTENT_TYPE;
+    }
+
+    /**
+     * Decode a voucher message into a new instance of the given class
+     * @param body The encoded bytes
+     * @param factory Creates the empty message to decode into
+     * @return The decoded message
+     * @throws IllegalArgumentException if the bytes are not a valid version 1 voucher message
+     */
+    public static <M extends VoucherMessage> M decode(byte[] body, Supplier<M> factory) {
+        Input in = new Input(body);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported voucher encoding version " + version);
+        }
+        int flags = in.readByte();
+
+        M message = factory.get();
+        message.setVoucherNumber(in.readString());
+        if ((flags & HAS_VOUCHER_DATE) != 0) {
+            message.setVoucherDate(LocalDate.ofEpochDay(in.readSignedVarLong()));
+        }
+        if ((flags & HAS_AMOUNT) != 0) {
+            int scale = Math.toIntExact(in.readSignedVarLong());
+            if ((flags & WIDE_AMOUNT) != 0) {
+                byte[] unscaled = in.readBytes(Math.toIntExact(in.readVarLong()));
+                message.setAmount(new BigDecimal(new BigInteger(unscaled), scale));
+            } else {
+                message.setAmount(BigDecimal.valueOf(in.readSignedVarLong(), scale));
+            }
+        }
+        message.setDescription(in.readString());
+        message.setCreatedBy(in.readString());
+        if ((flags & HAS_CREATED_DATE) != 0) {
+            message.setCreatedDate(LocalDate.ofEpochDay(in.readSignedVarLong()));
+        }
+        if ((flags & HAS_STATUS) != 0) {
+            int ordinal = in.readByte();
+            if (ordinal >= STATUSES.length) {
+                throw new IllegalArgumentException("Unknown voucher status ordinal " + ordinal);
+            }
+            message.setStatus(STATUSES[ordinal]);
+        }
+        message.setDebitAccount(in.readString());
+        message.setCreditAccount(in.readString());
+        if (in.remaining() != 0) {
+            throw new IllegalArgumentException(in.remaining() + " unexpected trailing bytes in voucher message");
+        }
+        return message;
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+        private int size;
+
+        Output(int initialCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            // Voucher fields are almost always ASCII: copy chars directly and skip the encoder
+            int length = value.length();
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                ascii = value.charAt(i) < 0x80;
+            }
+            if (!ascii) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(utf8.length + 1L);
+                writeBytes(utf8);
+                return;
+            }
+            writeVarLong(length + 1L);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                buffer[size++] = (byte) value.charAt(i);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            require(1);
+            return buffer[position++] & 0xFF;
+        }
+
+        byte[] readBytes(int length) {
+            require(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in voucher message");
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            int length = Math.toIntExact(readVarLong()) - 1;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        int remaining() {
+            return buffer.length - position;
+        }
+
+        private void require(int length) {
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("Truncated voucher message");
+            }
+        }
+    }
+}
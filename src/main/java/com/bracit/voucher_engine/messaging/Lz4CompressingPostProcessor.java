@@ -0,0 +1,25 @@
+package com.bracit.voucher_engine.messaging;
+
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.springframework.amqp.support.postprocessor.AbstractCompressingPostProcessor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses message bodies with LZ4 (frame format) and sets content-encoding "lz4"
+ */
+public class Lz4CompressingPostProcessor extends AbstractCompressingPostProcessor {
+
+    public static final String ENCODING = "lz4";
+
+    @Override
+    protected OutputStream getCompressorStream(OutputStream stream) throws IOException {
+        return new LZ4FrameOutputStream(stream);
+    }
+
+    @Override
+    protected String getEncoding() {
+        return ENCODING;
+    }
+}
@@ -0,0 +1,56 @@
+package com.bracit.voucher_engine.messaging;
+
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.support.postprocessor.AbstractDeflaterPostProcessor;
+import org.springframework.amqp.support.postprocessor.DeflaterPostProcessor;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+
+/**
+ * Factory for the message compression post processors.
+ * Supported algorithms: gzip and deflate (JDK, from Spring AMQP), lz4 (fastest, lowest ratio)
+ * and zstd (close to gzip's ratio at a fraction of its CPU cost)
+ */
+public final class MessageCompression {
+
+    public static final String NONE = "none";
+
+    private MessageCompression() {
+    }
+
+    /**
+     * Create the compressor for an algorithm
+     * @param algorithm gzip, deflate, lz4 or zstd
+     * @param level Compression level, or a negative value for the algorithm's default; lz4 ignores it
+     * @return The compressing post processor
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    public static MessagePostProcessor compressor(String algorithm, int level) {
+        return switch (algorithm) {
+            case "gzip" -> withLevel(new GZipPostProcessor(), level);
+            case "deflate" -> withLevel(new DeflaterPostProcessor(), level);
+            case "lz4" -> new Lz4CompressingPostProcessor();
+            case "zstd" -> new ZstdCompressingPostProcessor(level >= 0 ? level : 3);
+            default -> throw new IllegalArgumentException("Unsupported message compression: " + algorithm);
+        };
+    }
+
+    /**
+     * Create a decompressor that handles every supported content-encoding and passes
+     * uncompressed messages through unchanged
+     * @return The decompressing post processor
+     */
+    public static DelegatingDecompressingPostProcessor decompressor() {
+        DelegatingDecompressingPostProcessor decompressor = new DelegatingDecompressingPostProcessor();
+        decompressor.addDecompressor(Lz4CompressingPostProcessor.ENCODING, new Lz4DecompressingPostProcessor());
+        decompressor.addDecompressor(ZstdCompressingPostProcessor.ENCODING, new ZstdDecompressingPostProcessor());
+        return decompressor;
+    }
+
+    private static MessagePostProcessor withLevel(AbstractDeflaterPostProcessor processor, int level) {
+        if (level >= 0) {
+            processor.setLevel(level);
+        }
+        return processor;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bracit.voucher_engine.messaging;
+
+import com.bracit.voucher_engine.service.VoucherPipelineMetrics;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+
+/**
+ * Wraps a compressing or decompressing post processor with a size threshold and metrics.
+ * Compression skips bodies smaller than minBytes, where the CPU cost and frame overhead outweigh
+ * the saving; decompression only runs (and is only measured) for messages with a content-encoding
+ */
+public class MeteredCompressionPostProcessor implements MessagePostProcessor {
+
+    public static final String COMPRESS = "compress";
+    public static final String DECOMPRESS = "decompress";
+
+    private final MessagePostProcessor delegate;
+    private final String algorithm;
+    private final String direction;
+    private final int minBytes;
+    private final VoucherPipelineMetrics metrics;
+
+    /**
+     * @param delegate The compressing or decompressing post processor
+     * @param algorithm Algorithm name used as the metrics tag when compressing; decompression
+     *                  is tagged with the message's content-encoding
+     * @param direction COMPRESS or DECOMPRESS
+     * @param minBytes Smallest body to compress; ignored for decompression
+     * @param metrics Pipeline metrics
+     */
+    public MeteredCompressionPostProcessor(MessagePostProcessor delegate, String algorithm, String direction,
+                                           int minBytes, VoucherPipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.algorithm = algorithm;
+        this.direction = direction;
+        this.minBytes = minBytes;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Message postProcessMessage(Message message) throws AmqpException {
+        int inputBytes = message.getBody().length;
+        if (COMPRESS.equals(direction) && inputBytes < minBytes) {
+            metrics.recordCompressionSkipped(algorithm);
+            return message;
+        }
+        String encoding = message.getMessageProperties().getContentEncoding();
+        if (DECOMPRESS.equals(direction) && encoding == null) {
+            return message;
+        }
+
+        long start = System.nanoTime();
+        Message result = delegate.postProcessMessage(message);
+        long elapsedNanos = System.nanoTime() - start;
+
+        int outputBytes = result.getBody().length;
+        if (COMPRESS.equals(direction)) {
+            metrics.recordCompression(algorithm, direction, inputBytes, outputBytes, elapsedNanos);
+        } else {
+            // Compressors append the previous encoding after a colon, e.g. "gzip:UTF-8"
+            int colon = encoding.indexOf(':');
+            String messageAlgorithm = colon >= 0 ? encoding.substring(0, colon) : encoding;
+            metrics.recordCompression(messageAlgorithm, direction, outputBytes, inputBytes, elapsedNanos);
+        }
+        return result;
+    }
+}
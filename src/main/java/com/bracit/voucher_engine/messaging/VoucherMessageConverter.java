@@ -0,0 +1,70 @@
+package com.bracit.voucher_engine.messaging;
+
+import com.bracit.voucher_engine.dto.CreditVoucherMessage;
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+
+import java.util.function.Supplier;
+
+/**
+ * Message converter for all RabbitMQ templates and listener containers.
+ * Inbound, the content type decides: the debit and credit voucher types of DebitVoucherBinaryCodec
+ * are decoded by the binary codec and everything else goes to the JSON converter, so JSON
+ * producers keep working. Outbound, voucher messages are written in the binary format when binary
+ * output is enabled; all other payloads are always JSON
+ */
+public class VoucherMessageConverter implements SmartMessageConverter {
+
+    private final Jackson2JsonMessageConverter jsonConverter;
+    private final boolean binaryOutbound;
+
+    /**
+     * @param jsonConverter Converter for JSON messages and non-voucher payloads
+     * @param binaryOutbound true to publish voucher messages in the binary format
+     */
+    public VoucherMessageConverter(Jackson2JsonMessageConverter jsonConverter, boolean binaryOutbound) {
+        this.jsonConverter = jsonConverter;
+        this.binaryOutbound = binaryOutbound;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        if (binaryOutbound && object instanceof VoucherMessage voucherMessage) {
+            byte[] body = DebitVoucherBinaryCodec.encode(voucherMessage);
+            messageProperties.setContentType(DebitVoucherBinaryCodec.contentTypeOf(voucherMessage));
+            messageProperties.setContentLength(body.length);
+            return new Message(body, messageProperties);
+        }
+        return jsonConverter.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        return fromMessage(message, null);
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) throws MessageConversionException {
+        String contentType = message.getMessageProperties().getContentType();
+        if (DebitVoucherBinaryCodec.CONTENT_TYPE.equals(contentType)) {
+            return decode(message, contentType, DebitVoucherMessage::new);
+        }
+        if (DebitVoucherBinaryCodec.CREDIT_CONTENT_TYPE.equals(contentType)) {
+            return decode(message, contentType, CreditVoucherMessage::new);
+        }
+        return jsonConverter.fromMessage(message, conversionHint);
+    }
+
+    private static VoucherMessage decode(Message message, String contentType, Supplier<? extends VoucherMessage> factory) {
+        try {
+            return DebitVoucherBinaryCodec.decode(message.getBody(), factory);
+        } catch (RuntimeException e) {
+            throw new MessageConversionException("Could not decode " + contentType + " message", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.bracit.voucher_engine.messaging;
+
+import com.bracit.voucher_engine.config.RabbitMQConfig;
+import com.bracit.voucher_engine.model.VoucherType;
+
+/**
+ * Where the vouchers of one type are published, consumed from and dead-lettered to
+ * @param exchange Exchange vouchers are published to
+ * @param routingKey Routing key binding the queue to the exchange
+ * @param queue Queue the bulk consumer listens on
+ * @param deadLetterExchange Exchange failed vouchers are sent to
+ * @param deadLetterRoutingKey Routing key of the dead-letter queue
+ */
+public record VoucherRoute(String exchange, String routingKey, String queue,
+                           String deadLetterExchange, String deadLetterRoutingKey) {
+
+    public static final VoucherRoute DEBIT = new VoucherRoute(
+            RabbitMQConfig.DEBIT_VOUCHER_EXCHANGE, RabbitMQConfig.DEBIT_VOUCHER_ROUTING_KEY,
+            RabbitMQConfig.DEBIT_VOUCHER_QUEUE,
+            RabbitMQConfig.DEBIT_VOUCHER_DLX, RabbitMQConfig.DEBIT_VOUCHER_DLQ_ROUTING_KEY);
+
+    public static final VoucherRoute CREDIT = new VoucherRoute(
+            RabbitMQConfig.CREDIT_VOUCHER_EXCHANGE, RabbitMQConfig.CREDIT_VOUCHER_ROUTING_KEY,
+            RabbitMQConfig.CREDIT_VOUCHER_QUEUE,
+            RabbitMQConfig.CREDIT_VOUCHER_DLX, RabbitMQConfig.CREDIT_VOUCHER_DLQ_ROUTING_KEY);
+
+    /**
+     * @param type The voucher type
+     * @return The route for vouchers of that type
+     */
+    public static VoucherRoute of(VoucherType type) {
+        return switch (type) {
+            case DEBIT -> DEBIT;
+            case CREDIT -> CREDIT;
+        };
+    }
+}
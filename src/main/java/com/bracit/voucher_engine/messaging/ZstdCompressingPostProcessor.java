@@ -0,0 +1,34 @@
+package com.bracit.voucher_engine.messaging;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.springframework.amqp.support.postprocessor.AbstractCompressingPostProcessor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses message bodies with Zstandard and sets content-encoding "zstd"
+ */
+public class ZstdCompressingPostProcessor extends AbstractCompressingPostProcessor {
+
+    public static final String ENCODING = "zstd";
+
+    private final int level;
+
+    /**
+     * @param level Zstandard compression level (1-22, 3 is the library default)
+     */
+    public ZstdCompressingPostProcessor(int level) {
+        this.level = level;
+    }
+
+    @Override
+    protected OutputStream getCompressorStream(OutputStream stream) throws IOException {
+        return new ZstdOutputStream(stream, level);
+    }
+
+    @Override
+    protected String getEncoding() {
+        return ENCODING;
+    }
+}
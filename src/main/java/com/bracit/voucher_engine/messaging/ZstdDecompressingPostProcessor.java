@@ -0,0 +1,23 @@
+package com.bracit.voucher_engine.messaging;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.springframework.amqp.support.postprocessor.AbstractDecompressingPostProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses message bodies with content-encoding "zstd"
+ */
+public class ZstdDecompressingPostProcessor extends AbstractDecompressingPostProcessor {
+
+    @Override
+    protected InputStream getDecompressorStream(InputStream stream) throws IOException {
+        return new ZstdInputStream(stream);
+    }
+
+    @Override
+    protected String getEncoding() {
+        return ZstdCompressingPostProcessor.ENCODING;
+    }
+}
@@ -0,0 +1,52 @@
+package com.bracit.voucher_engine.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Running totals of an account at the end of one day. Each row holds the cumulative totals of all
+ * approved vouchers posted on or before balanceDate, so the balance as of any date is the single
+ * latest row on or before that date. Amounts are in minor units (cents).
+ * Every account also has a zero row dated ORIGIN, which flushes lock to serialize their changes
+ * to the account
+ */
+@Entity
+@Table(name = "account_balances", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_account_balances_account_date", columnNames = {"account", "balanceDate"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalance {
+
+    // Date of each account's zero row, before any posting
+    public static final LocalDate ORIGIN = LocalDate.of(1, 1, 1);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String account;
+
+    @Column(nullable = false)
+    private LocalDate balanceDate;
+
+    @Column(nullable = false)
+    private long debitTotal;
+
+    @Column(nullable = false)
+    private long creditTotal;
+}
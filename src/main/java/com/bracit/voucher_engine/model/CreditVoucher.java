@@ -2,6 +2,7 @@ package com.bracit.voucher_engine.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,7 +11,12 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
 @Entity
-@Table(name = "credit_vouchers")
+@Table(name = "credit_vouchers", indexes = {
+        @Index(name = "idx_credit_vouchers_status_date", columnList = "status, voucherDate"),
+        @Index(name = "idx_credit_vouchers_status_id", columnList = "status, id"),
+        @Index(name = "idx_credit_vouchers_created_by_id", columnList = "createdBy, id"),
+        @Index(name = "idx_credit_vouchers_voucher_date", columnList = "voucherDate")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 @SuperBuilder
@@ -1,16 +1,27 @@
 package com.bracit.voucher_engine.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "debit_vouchers")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "debit_vouchers", indexes = {
+        @Index(name = "idx_debit_vouchers_status_date", columnList = "status, voucherDate"),
+        @Index(name = "idx_debit_vouchers_status_id", columnList = "status, id"),
+        @Index(name = "idx_debit_vouchers_created_by_id", columnList = "createdBy, id"),
+        @Index(name = "idx_debit_vouchers_voucher_date", columnList = "voucherDate")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 @SuperBuilder
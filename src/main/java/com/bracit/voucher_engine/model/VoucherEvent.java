@@ -0,0 +1,67 @@
+package com.bracit.voucher_engine.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A voucher change waiting in the transactional outbox. Rows are written in the transaction of
+ * the change they describe and deleted once the relay has published them, so the table only
+ * holds events not yet confirmed by the broker. The id identifies the event to consumers
+ */
+@Entity
+@Table(name = "voucher_events")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoucherEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private VoucherEventType eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private VoucherType voucherType;
+
+    @Column(nullable = false)
+    private Long voucherId;
+
+    private String voucherNumber;
+
+    // Status and version of the voucher after the change (before it, for DELETED)
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private VoucherStatus status;
+
+    @Column(nullable = false)
+    private long version;
+
+    private BigDecimal amount;
+
+    private String debitAccount;
+
+    private String creditAccount;
+
+    private String actor;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+}
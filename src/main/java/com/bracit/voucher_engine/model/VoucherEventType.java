@@ -0,0 +1,27 @@
+package com.bracit.voucher_engine.model;
+
+/**
+ * What happened to a voucher, as published on the voucher event stream
+ */
+public enum VoucherEventType {
+    CREATED,
+    SUBMITTED,
+    APPROVED,
+    REJECTED,
+    CANCELLED,
+    DELETED;
+
+    /**
+     * @param status The status a voucher moved to
+     * @return The event of moving to that status
+     */
+    public static VoucherEventType of(VoucherStatus status) {
+        return switch (status) {
+            case DRAFT -> CREATED;
+            case PENDING_APPROVAL -> SUBMITTED;
+            case APPROVED -> APPROVED;
+            case REJECTED -> REJECTED;
+            case CANCELLED -> CANCELLED;
+        };
+    }
+}
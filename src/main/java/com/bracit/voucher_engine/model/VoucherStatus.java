@@ -1,9 +1,86 @@
 package com.bracit.voucher_engine.model;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lifecycle of a voucher. Status changes must follow the transition table:
+ * DRAFT -> PENDING_APPROVAL | CANCELLED
+ * PENDING_APPROVAL -> APPROVED | REJECTED | CANCELLED
+ * REJECTED -> PENDING_APPROVAL | CANCELLED
+ * APPROVED and CANCELLED are final
+ */
 public enum VoucherStatus {
     DRAFT,
     PENDING_APPROVAL,
     APPROVED,
     REJECTED,
-    CANCELLED
-} 
\ No newline at end of file
+    CANCELLED;
+
+    private static final Map<VoucherStatus, Set<VoucherStatus>> TRANSITIONS = new EnumMap<>(VoucherStatus.class);
+
+    static {
+        TRANSITIONS.put(DRAFT, EnumSet.of(PENDING_APPROVAL, CANCELLED));
+        TRANSITIONS.put(PENDING_APPROVAL, EnumSet.of(APPROVED, REJECTED, CANCELLED));
+        TRANSITIONS.put(REJECTED, EnumSet.of(PENDING_APPROVAL, CANCELLED));
+        TRANSITIONS.put(APPROVED, EnumSet.noneOf(VoucherStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(VoucherStatus.class));
+    }
+
+    /**
+     * @param target The status to move to
+     * @return true if a voucher in this status may move to target
+     */
+    public boolean canTransitionTo(VoucherStatus target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * @return The statuses a voucher in this status may move to
+     */
+    public Set<VoucherStatus> nextStatuses() {
+        return Collections.unmodifiableSet(TRANSITIONS.get(this));
+    }
+
+    /**
+     * The status a new voucher is stored with. Vouchers are created as DRAFT or PENDING_APPROVAL;
+     * every later status is only reached through the transition table
+     * @param requested The status the voucher was submitted with, or null
+     * @return requested, or DRAFT if none was given
+     * @throws IllegalArgumentException if vouchers cannot be created in the requested status
+     */
+    public static VoucherStatus initial(VoucherStatus requested) {
+        if (requested == null) {
+            return DRAFT;
+        }
+        if (!requested.isInitial()) {
+            throw new IllegalArgumentException("Vouchers cannot be created as " + requested
+                    + "; allowed: " + DRAFT + ", " + PENDING_APPROVAL);
+        }
+        return requested;
+    }
+
+    /**
+     * @return true if vouchers may be created in this status
+     */
+    public boolean isInitial() {
+        return this == DRAFT || this == PENDING_APPROVAL;
+    }
+
+    /**
+     * @return true if the voucher's content may still be changed
+     */
+    public boolean isEditable() {
+        return this == DRAFT || this == PENDING_APPROVAL || this == REJECTED;
+    }
+
+    /**
+     * @return true if the voucher may be deleted
+     */
+    public boolean isDeletable() {
+        return this != APPROVED;
+    }
+}
@@ -0,0 +1,52 @@
+package com.bracit.voucher_engine.model;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The kinds of voucher handled by the ingest pipeline, each stored in its own table
+ */
+public enum VoucherType {
+    DEBIT("debit_vouchers"),
+    CREDIT("credit_vouchers");
+
+    private final String tableName;
+
+    VoucherType(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * @return Name of the table the vouchers of this type are stored in
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Index components that each handle one voucher type, such as the bulk writers
+     * @param components The components, one per voucher type
+     * @param typeOf Returns the type a component handles
+     * @return The components by the type they handle
+     * @throws IllegalStateException if a type is handled by no component or by more than one
+     */
+    public static <C> Map<VoucherType, C> index(Collection<? extends C> components,
+                                                Function<? super C, VoucherType> typeOf) {
+        Map<VoucherType, C> indexed = new EnumMap<>(VoucherType.class);
+        for (C component : components) {
+            VoucherType type = typeOf.apply(component);
+            if (indexed.putIfAbsent(type, component) != null) {
+                throw new IllegalStateException("More than one " + component.getClass().getSimpleName()
+                        + " handles " + type + " vouchers");
+            }
+        }
+        for (VoucherType type : values()) {
+            if (!indexed.containsKey(type)) {
+                throw new IllegalStateException("No component handles " + type + " vouchers");
+            }
+        }
+        return indexed;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bracit.voucher_engine.repository;
+
+import com.bracit.voucher_engine.model.AccountBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface AccountBalanceRepository extends JpaRepository<AccountBalance, Long> {
+
+    /**
+     * The latest daily row on or before a date; served by the (account, balanceDate) unique index
+     */
+    Optional<AccountBalance> findFirstByAccountAndBalanceDateLessThanEqualOrderByBalanceDateDesc(String account,
+                                                                                                 LocalDate balanceDate);
+
+    /**
+     * One row of an account, locked with SELECT ... FOR UPDATE until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<AccountBalance> findWithLockByAccountAndBalanceDate(String account, LocalDate balanceDate);
+
+    /**
+     * Add totals posted on a date to the row of that day and of all later days, which hold
+     * cumulative totals. The increment is done by the database, so it never works on a stale read
+     * @return The number of rows updated
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update AccountBalance b set b.debitTotal = b.debitTotal + :debit, b.creditTotal = b.creditTotal + :credit "
+            + "where b.account = :account and b.balanceDate >= :balanceDate")
+    int addToDaysFrom(@Param("account") String account,
+                      @Param("balanceDate") LocalDate balanceDate,
+                      @Param("debit") long debit,
+                      @Param("credit") long credit);
+}
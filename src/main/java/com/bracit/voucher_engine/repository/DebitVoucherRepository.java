@@ -2,17 +2,49 @@ package com.bracit.voucher_engine.repository;
 
 import com.bracit.voucher_engine.model.DebitVoucher;
 import com.bracit.voucher_engine.model.VoucherStatus;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface DebitVoucherRepository extends JpaRepository<DebitVoucher, Long> {
-    Optional<DebitVoucher> findByVoucherNumber(String voucherNumber);
-    List<DebitVoucher> findByStatus(VoucherStatus status);
-    List<DebitVoucher> findByVoucherDateBetween(LocalDate startDate, LocalDate endDate);
-    List<DebitVoucher> findByCreatedBy(String createdBy);
-} 
\ No newline at end of file
+public interface DebitVoucherRepository extends VoucherRepository<DebitVoucher> {
+    // Keyset (seek) pagination: next page starts after the last id of the previous one
+    List<DebitVoucher> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    List<DebitVoucher> findByStatusAndIdGreaterThanOrderByIdAsc(VoucherStatus status, Long afterId, Limit limit);
+    List<DebitVoucher> findByVoucherDateBetweenAndIdGreaterThanOrderByIdAsc(
+            LocalDate startDate, LocalDate endDate, Long afterId, Limit limit);
+    List<DebitVoucher> findByStatusAndVoucherDateBetweenAndIdGreaterThanOrderByIdAsc(
+            VoucherStatus status, LocalDate startDate, LocalDate endDate, Long afterId, Limit limit);
+
+    // Streaming reads for exports; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<DebitVoucher> streamAllByOrderByIdAsc();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<DebitVoucher> streamByStatusOrderByIdAsc(VoucherStatus status);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<DebitVoucher> streamByVoucherDateBetweenOrderByIdAsc(LocalDate startDate, LocalDate endDate);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<DebitVoucher> streamByStatusAndVoucherDateBetweenOrderByIdAsc(
+            VoucherStatus status, LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,24 @@
+package com.bracit.voucher_engine.repository;
+
+import com.bracit.voucher_engine.model.VoucherEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VoucherEventRepository extends JpaRepository<VoucherEvent, Long> {
+
+    /**
+     * The oldest unpublished events, locked with SELECT ... FOR UPDATE SKIP LOCKED (lock timeout -2),
+     * so concurrent relays claim disjoint batches instead of waiting on or duplicating each other
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<VoucherEvent> findAllByOrderByIdAsc(Limit limit);
+}
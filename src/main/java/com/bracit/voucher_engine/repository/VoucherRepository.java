@@ -0,0 +1,58 @@
+package com.bracit.voucher_engine.repository;
+
+import com.bracit.voucher_engine.dto.VoucherDecisionRow;
+import com.bracit.voucher_engine.dto.VoucherSummary;
+import com.bracit.voucher_engine.model.Voucher;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Queries shared by the repositories of all voucher types
+ * @param <T> The voucher entity
+ */
+@NoRepositoryBean
+public interface VoucherRepository<T extends Voucher> extends JpaRepository<T, Long> {
+    Optional<T> findByVoucherNumber(String voucherNumber);
+    // Scans the voucher number index backwards and stops at the first match
+    Optional<T> findFirstByVoucherNumberStartingWithOrderByVoucherNumberDesc(String prefix);
+    // First rows in id order for the capped, unpaginated list endpoints
+    List<T> findAllByOrderByIdAsc(Limit limit);
+    List<T> findByStatusOrderByIdAsc(VoucherStatus status, Limit limit);
+    List<T> findByVoucherDateBetweenOrderByIdAsc(LocalDate startDate, LocalDate endDate, Limit limit);
+    List<T> findByCreatedBy(String createdBy);
+
+    // Summary projections for list views, keyset-paginated on id
+    List<VoucherSummary> findSummariesByStatusAndIdGreaterThanOrderByIdAsc(
+            VoucherStatus status, Long afterId, Limit limit);
+    List<VoucherSummary> findSummariesByCreatedByAndIdGreaterThanOrderByIdAsc(
+            String createdBy, Long afterId, Limit limit);
+    List<VoucherSummary> findSummariesByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Which of the given voucher numbers are already stored (duplicate detection before bulk writes)
+    @Query("select v.voucherNumber from #{#entityName} v where v.voucherNumber in :voucherNumbers")
+    List<String> findExistingVoucherNumbers(@Param("voucherNumbers") Collection<String> voucherNumbers);
+
+    // Bulk approval and rejection read the rows of a chunk, then change them with compare-and-set UPDATEs
+    @Query("select new com.bracit.voucher_engine.dto.VoucherDecisionRow(v.id, v.voucherNumber, v.version, v.amount, v.debitAccount, v.creditAccount) "
+            + "from #{#entityName} v where v.id in :ids and v.status = :status")
+    List<VoucherDecisionRow> findDecisionRowsByIdIn(@Param("ids") Collection<Long> ids,
+                                                    @Param("status") VoucherStatus status);
+
+    @Query("select new com.bracit.voucher_engine.dto.VoucherDecisionRow(v.id, v.voucherNumber, v.version, v.amount, v.debitAccount, v.creditAccount) "
+            + "from #{#entityName} v where v.status = :status and v.voucherDate between :startDate and :endDate "
+            + "and v.id > :afterId order by v.id")
+    List<VoucherDecisionRow> findDecisionRowsByDateRange(@Param("status") VoucherStatus status,
+                                                         @Param("startDate") LocalDate startDate,
+                                                         @Param("endDate") LocalDate endDate,
+                                                         @Param("afterId") Long afterId,
+                                                         Limit limit);
+}
@@ -0,0 +1,322 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.config.RabbitMQConfig;
+import com.bracit.voucher_engine.dto.FailedVoucher;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.messaging.VoucherRoute;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.messaging.Message;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Consumes and persists bulk vouchers of one type from RabbitMQ. Subclasses declare the batch
+ * listener for their queue and hand each batch to receiveBatch; writing, dead-lettering,
+ * acknowledgement, statistics and pausing are shared by all voucher types.
+ * Uses virtual threads for improved performance and scalability
+ * @param <M> The voucher message type
+ */
+@Slf4j
+public abstract class AbstractBulkVoucherConsumer<M extends VoucherMessage> {
+
+    @Autowired
+    private BisectingVoucherWriter bisectingWriter;
+    
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+    
+    @Autowired
+    private VoucherPipelineMetrics metrics;
+    
+    @Autowired
+    private RabbitListenerEndpointRegistry listenerEndpointRegistry;
+    
+    @Autowired
+    @Qualifier("boundedVirtualThreadExecutor")
+    private ExecutorService boundedVirtualThreadExecutor;
+    
+    @Value("${app.bulk-consumption.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${app.bulk-consumption.report-interval:1000}")
+    private int reportInterval;
+    
+    @Value("${app.batch-consumer.acknowledge-mode:MANUAL}")
+    private AcknowledgeMode acknowledgeMode;
+    
+    private final VoucherType type;
+    private final VoucherRoute route;
+    private final String listener;
+    
+    private final ConcurrentHashMap<String, String> failedVouchers = new ConcurrentHashMap<>();
+    
+    // Meter values at the last resetStats; Micrometer counters are monotonic
+    private volatile StatsBaseline baseline = new StatsBaseline(0, 0, 0, 0);
+    
+    private record StatsBaseline(double processed, double success, double failure, double duplicates) {
+    }
+    
+    /**
+     * @param type The type of voucher consumed
+     */
+    protected AbstractBulkVoucherConsumer(VoucherType type) {
+        this.type = type;
+        this.route = VoucherRoute.of(type);
+        this.listener = VoucherPipelineMetrics.bulkListener(type);
+    }
+
+    /**
+     * @return The type of voucher consumed
+     */
+    public VoucherType getType() {
+        return type;
+    }
+    
+    /**
+     * Process a batch of voucher messages received from RabbitMQ.
+     * The batch is written to the database before returning; in MANUAL acknowledge mode the
+     * messages are acked only after the write has committed, failing messages are routed to the
+     * dead-letter queue, and the whole batch is requeued if the database is unavailable.
+     * @param messages The batch of voucher messages received from RabbitMQ
+     * @param channel The channel the batch was received on, used for manual acknowledgement
+     */
+    protected void receiveBatch(List<Message<M>> messages, Channel channel) throws IOException {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        
+        log.debug("Received batch of {} {} vouchers", messages.size(), type);
+        metrics.recordBulkBatchReceived(listener, messages.size());
+        
+        // Delivery tags are increasing per channel, so acking the last one with multiple=true
+        // settles the whole batch
+        long lastDeliveryTag = messages.get(messages.size() - 1).getHeaders()
+                .get(AmqpHeaders.DELIVERY_TAG, Long.class);
+        boolean manualAck = acknowledgeMode == AcknowledgeMode.MANUAL;
+        
+        try {
+            List<M> payloads = messages.stream()
+                    .map(Message::getPayload)
+                    .collect(Collectors.toList());
+            
+            // Process the batch and wait for it to be committed
+            long start = System.nanoTime();
+            List<FailedVoucher> failures = processBatch(payloads);
+            onBatchProcessed(payloads.size(), System.nanoTime() - start);
+            
+            // Park the messages that can never succeed so they don't block the queue
+            failures.forEach(this::sendToDeadLetterQueue);
+            metrics.recordDeadLettered(listener, failures.size());
+            
+            for (Message<M> message : messages) {
+                metrics.recordEndToEndLatency(listener,
+                        message.getHeaders().get(RabbitMQConfig.HEADER_PUBLISHED_AT, Number.class));
+            }
+            
+            if (manualAck) {
+                channel.basicAck(lastDeliveryTag, true);
+            }
+        } catch (Exception e) {
+            log.warn("Batch of {} {} vouchers could not be processed, requeueing: {}", messages.size(), type, e.getMessage());
+            metrics.recordRequeued(listener, messages.size());
+            if (!manualAck) {
+                throw e;
+            }
+            channel.basicNack(lastDeliveryTag, true, true);
+        }
+    }
+    
+    /**
+     * Called after each batch has been written, with the time the write took
+     * @param messages Number of messages in the batch
+     * @param elapsedNanos Time spent writing the batch
+     */
+    protected void onBatchProcessed(int messages, long elapsedNanos) {
+    }
+    
+    /**
+     * Process a batch of voucher messages using virtual threads and wait for all writes to finish.
+     * Sub-batches run on the bounded DB write executor, so a listener thread blocks here while
+     * all database permits are taken rather than piling up connection requests
+     * @param messages List of voucher messages to process
+     * @return The messages that failed permanently and should be dead-lettered
+     * @throws DataAccessException if the database is unavailable and the batch should be retried later
+     */
+    public List<FailedVoucher> processBatch(List<M> messages) {
+        // Process in smaller batches for better throughput
+        List<List<M>> batches = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i += batchSize) {
+            batches.add(messages.subList(i, Math.min(i + batchSize, messages.size())));
+        }
+        
+        // Process each batch with virtual threads
+        List<CompletableFuture<List<FailedVoucher>>> futures = batches.stream()
+                .map(batch -> CompletableFuture.supplyAsync(() -> processBatchInBulk(batch), boundedVirtualThreadExecutor))
+                .collect(Collectors.toList());
+        
+        List<FailedVoucher> failures = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<FailedVoucher>> future : futures) {
+                failures.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        
+        // Report progress periodically
+        long processed = (long) metrics.getConsumedCount(listener);
+        if ((processed - messages.size()) / reportInterval != processed / reportInterval) {
+            reportProgress();
+        }
+        
+        return failures;
+    }
+    
+    /**
+     * Process a batch of vouchers using the configured bulk writer. If the write fails
+     * permanently the batch is bisected to isolate the failing vouchers
+     * @param batch List of voucher messages to write in bulk
+     * @return The messages that failed permanently
+     * @throws RuntimeException if the database is unavailable and the batch should be retried later
+     */
+    private List<FailedVoucher> processBatchInBulk(List<M> batch) {
+        List<FailedVoucher> failures = bisectingWriter.write(type, batch);
+        for (FailedVoucher failure : failures) {
+            failedVouchers.put(String.valueOf(failure.getMessage().getVoucherNumber()), String.valueOf(failure.getError()));
+            log.debug("Error processing voucher {}: {}", failure.getMessage().getVoucherNumber(), failure.getError());
+        }
+        return failures;
+    }
+    
+    /**
+     * Publish a failed message to the dead-letter queue with the failure reason in its headers
+     * @param failure The failed voucher message
+     */
+    private void sendToDeadLetterQueue(FailedVoucher failure) {
+        rabbitTemplate.convertAndSend(
+                route.deadLetterExchange(),
+                route.deadLetterRoutingKey(),
+                failure.getMessage(),
+                message -> {
+                    message.getMessageProperties().setHeader(RabbitMQConfig.HEADER_EXCEPTION_MESSAGE, failure.getError());
+                    message.getMessageProperties().setHeader(RabbitMQConfig.HEADER_ORIGINAL_QUEUE, route.queue());
+                    return message;
+                }
+        );
+    }
+    
+    /**
+     * Report the current processing progress
+     */
+    private void reportProgress() {
+        StatsBaseline current = currentStats();
+        
+        log.info("Bulk {} voucher processing progress: processed {}, successful {}, failed {}, success rate {}%",
+                type, (long) current.processed(), (long) current.success(), (long) current.failure(),
+                String.format("%.2f", successRate(current)));
+        
+        // If there are failures, log some of the failed vouchers
+        if (current.failure() > 0 && log.isDebugEnabled()) {
+            failedVouchers.entrySet().stream()
+                    .limit(5)
+                    .forEach(entry -> log.debug("Failed voucher {}: {}", entry.getKey(), entry.getValue()));
+        }
+    }
+    
+    /**
+     * Get the current processing statistics, read from the pipeline meters
+     * @return A string containing the current processing statistics
+     */
+    public String getProcessingStats() {
+        StatsBaseline current = currentStats();
+        
+        return String.format(
+                "Processed: %d, Successful: %d, Failed: %d, Skipped duplicates: %d, Success Rate: %.2f%%",
+                (long) current.processed(), (long) current.success(), (long) current.failure(),
+                (long) current.duplicates(), successRate(current)
+        );
+    }
+    
+    /**
+     * Reset the processing statistics. The underlying meters keep counting; the statistics
+     * reported here are relative to the last reset
+     */
+    public void resetStats() {
+        baseline = new StatsBaseline(
+                metrics.getConsumedCount(listener),
+                metrics.getPersistedCount(listener),
+                metrics.getDeadLetteredCount(listener),
+                metrics.getDuplicateCount(listener));
+        failedVouchers.clear();
+        log.info("Bulk {} voucher consumer statistics reset", type);
+    }
+    
+    /**
+     * Stop all listener containers consuming from the queue of this voucher type. Each container finishes
+     * the batch it is processing before stopping; prefetched unacknowledged messages go back to the queue
+     */
+    public void pauseListeners() {
+        List<MessageListenerContainer> containers = queueContainers();
+        containers.forEach(MessageListenerContainer::stop);
+        log.info("Paused {} {} voucher listener containers", containers.size(), type);
+    }
+    
+    /**
+     * Start all listener containers consuming from the queue of this voucher type
+     */
+    public void resumeListeners() {
+        List<MessageListenerContainer> containers = queueContainers();
+        containers.forEach(MessageListenerContainer::start);
+        log.info("Resumed {} {} voucher listener containers", containers.size(), type);
+    }
+    
+    /**
+     * @return true if any listener container is consuming from the queue of this voucher type
+     */
+    public boolean isListening() {
+        return queueContainers().stream().anyMatch(MessageListenerContainer::isRunning);
+    }
+    
+    private List<MessageListenerContainer> queueContainers() {
+        return listenerEndpointRegistry.getListenerContainers().stream()
+                .filter(container -> container instanceof AbstractMessageListenerContainer listenerContainer
+                        && Arrays.asList(listenerContainer.getQueueNames()).contains(route.queue()))
+                .toList();
+    }
+    
+    private StatsBaseline currentStats() {
+        StatsBaseline reset = baseline;
+        return new StatsBaseline(
+                metrics.getConsumedCount(listener) - reset.processed(),
+                metrics.getPersistedCount(listener) - reset.success(),
+                metrics.getDeadLetteredCount(listener) - reset.failure(),
+                metrics.getDuplicateCount(listener) - reset.duplicates());
+    }
+    
+    private static double successRate(StatsBaseline stats) {
+        return stats.processed() > 0 ? stats.success() * 100.0 / stats.processed() : 0;
+    }
+}
@@ -0,0 +1,331 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.exception.BulkGenerationTimeoutException;
+import com.bracit.voucher_engine.messaging.VoucherRoute;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates and publishes bulk vouchers of one type to RabbitMQ.
+ * Vouchers are built directly as messages from a SplitMix64 hash of (seed, index), so a given seed
+ * always produces the same dataset regardless of batch size or thread scheduling. Each voucher
+ * type hashes with its own salt and numbers its vouchers with its own prefix, so the types never
+ * collide. Batches are generated and published on virtual threads, with at most threadCount
+ * batches generated or awaiting confirms at a time
+ * @param <M> The voucher message type
+ */
+@Slf4j
+public abstract class AbstractBulkVoucherProducer<M extends VoucherMessage> {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MAX_PADDED_INDEX = 9_999_999_999L;
+
+    private static final String[] DEBIT_ACCOUNTS = {
+            "1001", "1002", "1003", "1004", "1005",
+            "1006", "1007", "1008", "1009", "1010"
+    };
+    private static final String[] CREDIT_ACCOUNTS = {
+            "2001", "2002", "2003", "2004", "2005",
+            "2006", "2007", "2008", "2009", "2010"
+    };
+    private static final String[] DESCRIPTIONS = {
+            "Salary payment", "Vendor payment", "Utility bill", "Office supplies",
+            "Rent payment", "Insurance premium", "Maintenance cost", "Travel expense",
+            "Training cost", "Miscellaneous expense"
+    };
+
+    @Autowired
+    private ConfirmingVoucherPublisher confirmingPublisher;
+    
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+    
+    @Value("${app.bulk-generation.use-batching:true}")
+    private boolean useBatching;
+    
+    @Value("${app.bulk-generation.seed:0}")
+    private long seed;
+    
+    @Value("${app.bulk-generation.timeout-minutes:30}")
+    private long timeoutMinutes;
+    
+    private final VoucherType type;
+    private final VoucherRoute route;
+    private final char[] numberPrefix;
+    private final long salt;
+    
+    /**
+     * Receives progress from a generation run and can stop it early
+     */
+    public interface GenerationProgress {
+
+        GenerationProgress NONE = new GenerationProgress() {
+        };
+
+        /**
+         * Called after each batch has been published (or has failed)
+         * @param generated Number of vouchers generated in the batch
+         * @param confirmed Number of those vouchers confirmed by the broker
+         */
+        default void onBatchPublished(long generated, long confirmed) {
+        }
+
+        /**
+         * @return true to stop generating further batches; batches already in flight still complete
+         */
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+    
+    /**
+     * @param type The type of voucher generated, which decides where it is published
+     * @param numberPrefix Two-letter prefix of the generated voucher numbers
+     * @param salt Added to the seed so that voucher types generate different data for the same seed
+     */
+    protected AbstractBulkVoucherProducer(VoucherType type, String numberPrefix, long salt) {
+        this.type = type;
+        this.route = VoucherRoute.of(type);
+        this.numberPrefix = numberPrefix.toCharArray();
+        this.salt = salt;
+    }
+    
+    /**
+     * @return The type of voucher generated
+     */
+    public VoucherType getType() {
+        return type;
+    }
+
+    /**
+     * @return The prefix of the generated voucher numbers
+     */
+    public String getNumberPrefix() {
+        return new String(numberPrefix);
+    }
+
+    /**
+     * @param voucherNumber A voucher number
+     * @return The index the number was generated from, or -1 if this producer does not generate it
+     */
+    public long parseIndex(String voucherNumber) {
+        String prefix = getNumberPrefix();
+        if (voucherNumber == null || !voucherNumber.startsWith(prefix) || voucherNumber.length() == prefix.length()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(voucherNumber.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (seed == 0) {
+            seed = ThreadLocalRandom.current().nextLong();
+        }
+        log.info("Bulk voucher generation seed for {}: {} (set app.bulk-generation.seed to reproduce)",
+                route.exchange(), seed);
+    }
+
+    /**
+     * Generate and publish a specified number of vouchers to RabbitMQ
+     * @param count Number of vouchers to generate and publish
+     * @param batchSize Size of each batch for processing
+     * @param threadCount Maximum number of batches generated or being published at the same time
+     * @return The number of vouchers successfully published
+     */
+    public long generateAndPublishBulkVouchers(long count, int batchSize, int threadCount) {
+        return generateAndPublishBulkVouchers(0, count, batchSize, threadCount);
+    }
+    
+    /**
+     * Generate and publish vouchers numbered from startIndex, so repeated calls
+     * (e.g. a rate-limited load run) do not reuse voucher numbers
+     * @param startIndex Index of the first voucher (used for voucher number generation)
+     * @param count Number of vouchers to generate and publish
+     * @param batchSize Size of each batch for processing
+     * @param threadCount Maximum number of batches generated or being published at the same time
+     * @return The number of vouchers confirmed by the broker
+     */
+    public long generateAndPublishBulkVouchers(long startIndex, long count, int batchSize, int threadCount) {
+        return generateAndPublishBulkVouchers(startIndex, count, batchSize, threadCount, GenerationProgress.NONE);
+    }
+    
+    /**
+     * Generate and publish vouchers numbered from startIndex, reporting progress per batch
+     * @param startIndex Index of the first voucher (used for voucher number generation)
+     * @param count Number of vouchers to generate and publish
+     * @param batchSize Size of each batch for processing
+     * @param threadCount Maximum number of batches generated or being published at the same time
+     * @param progress Notified after each batch; checked for cancellation before each batch starts
+     * @return The number of vouchers confirmed by the broker
+     * @throws BulkGenerationTimeoutException if the run takes longer than app.bulk-generation.timeout-minutes;
+     * batches still in flight are cancelled first
+     */
+    public long generateAndPublishBulkVouchers(long startIndex, long count, int batchSize, int threadCount,
+                                               GenerationProgress progress) {
+        log.info("Starting bulk voucher generation: {} vouchers to {} (batching mode: {})",
+                count, route.exchange(), useBatching);
+        
+        AtomicLong successCount = new AtomicLong(0);
+        AtomicLong processedCount = new AtomicLong(0);
+        LocalDate today = LocalDate.now();
+        
+        // Bounded window: a batch is only generated once a permit is free, so memory stays at
+        // threadCount batches however many vouchers are requested
+        Semaphore window = new Semaphore(Math.max(1, threadCount));
+        List<Future<?>> batches = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(timeoutMinutes);
+        
+        long endIndex = startIndex + count;
+        try {
+            for (long i = startIndex; i < endIndex; i += batchSize) {
+                final long batchStart = i;
+                final long batchEnd = Math.min(i + batchSize, endIndex);
+                
+                if (!window.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new TimeoutException();
+                }
+                if (progress.isCancelled()) {
+                    window.release();
+                    log.info("Bulk voucher generation cancelled after {} of {} vouchers", i - startIndex, count);
+                    break;
+                }
+                batches.add(virtualThreadExecutor.submit(() -> {
+                    long confirmed = 0;
+                    try {
+                        List<M> messages = new ArrayList<>((int) (batchEnd - batchStart));
+                        for (long j = batchStart; j < batchEnd; j++) {
+                            messages.add(generateVoucherMessage(j, today));
+                        }
+                        
+                        // Publish the batch
+                        confirmed = publishVoucherBatch(messages);
+                        successCount.addAndGet(confirmed);
+                        
+                        long processed = processedCount.addAndGet(batchEnd - batchStart);
+                        if (processed / 10000 != (processed - (batchEnd - batchStart)) / 10000 || processed == count) {
+                            log.info("Processed {} vouchers out of {}", processed, count);
+                        }
+                    } catch (Exception e) {
+                        log.warn("Error processing batch: {}", e.getMessage());
+                    } finally {
+                        window.release();
+                        progress.onBatchPublished(batchEnd - batchStart, confirmed);
+                    }
+                }));
+            }
+            
+            // Wait for all batches to complete within the same deadline
+            for (Future<?> batch : batches) {
+                batch.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            // Interrupting a batch stops its further sends; confirms already awaited time out on their own
+            batches.forEach(batch -> batch.cancel(true));
+            log.error("Voucher generation did not finish within {} minutes, cancelled the batches in flight", timeoutMinutes);
+            throw new BulkGenerationTimeoutException("Voucher generation did not finish within " + timeoutMinutes
+                    + " minutes; " + successCount.get() + " of " + count + " vouchers were confirmed");
+        } catch (InterruptedException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            Thread.currentThread().interrupt();
+            log.warn("Voucher generation was interrupted: {}", e.getMessage());
+        } catch (ExecutionException e) {
+            log.warn("Voucher generation failed: {}", e.getMessage());
+        }
+        
+        log.info("Bulk voucher generation completed. Successfully published: {}", successCount.get());
+        return successCount.get();
+    }
+    
+    /**
+     * Publish a batch of vouchers to RabbitMQ and wait for the broker to confirm them
+     * @param messages List of voucher messages to publish
+     * @return Number of vouchers confirmed by the broker
+     */
+    private long publishVoucherBatch(List<M> messages) {
+        // Small batches go out as individual messages, larger ones as batch messages. Either way
+        // publishing is pipelined and only broker-confirmed vouchers are counted as successful
+        boolean batched = useBatching && messages.size() > 10;
+        return confirmingPublisher.publish(route, messages, batched);
+    }
+    
+    /**
+     * Generate the pseudo-random voucher for an index. The fields depend only on the seed
+     * and the index, so no random generator state is shared between threads
+     * @param index The index of the voucher (used for voucher number generation)
+     * @param voucherDate The date for the voucher
+     * @return The generated message
+     */
+    M generateVoucherMessage(long index, LocalDate voucherDate) {
+        long hash = mix64(seed + salt + index * GOLDEN_GAMMA);
+        long cents = Long.remainderUnsigned(hash, 1_000_000);
+        int picks = (int) (mix64(hash) >>> 32);
+        
+        return newMessage(
+                formatVoucherNumber(index),
+                voucherDate,
+                BigDecimal.valueOf(cents, 2),
+                DESCRIPTIONS[Integer.remainderUnsigned(picks, DESCRIPTIONS.length)],
+                "SYSTEM",
+                voucherDate,
+                VoucherStatus.PENDING_APPROVAL,
+                DEBIT_ACCOUNTS[Integer.remainderUnsigned(picks >>> 8, DEBIT_ACCOUNTS.length)],
+                CREDIT_ACCOUNTS[Integer.remainderUnsigned(picks >>> 16, CREDIT_ACCOUNTS.length)]);
+    }
+    
+    /**
+     * Create the message of the voucher type
+     */
+    protected abstract M newMessage(String voucherNumber, LocalDate voucherDate, BigDecimal amount, String description,
+                                    String createdBy, LocalDate createdDate, VoucherStatus status,
+                                    String debitAccount, String creditAccount);
+    
+    /**
+     * The number prefix followed by the index zero-padded to 10 digits, without String.format
+     */
+    String formatVoucherNumber(long index) {
+        if (index < 0 || index > MAX_PADDED_INDEX) {
+            return new String(numberPrefix) + index;
+        }
+        char[] chars = new char[12];
+        chars[0] = numberPrefix[0];
+        chars[1] = numberPrefix[1];
+        for (int i = 11; i >= 2; i--) {
+            chars[i] = (char) ('0' + index % 10);
+            index /= 10;
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * SplitMix64 finaliser, the same mixing SplittableRandom applies to its seeds
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,309 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.AccountBalanceDto;
+import com.bracit.voucher_engine.model.AccountBalance;
+import com.bracit.voucher_engine.repository.AccountBalanceRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Incrementally maintained account balances.
+ * Approving a voucher adds its amount to in-memory LongAdder totals of its debit and credit account
+ * for the posting (approval) date; approvals never touch the database. A scheduled flush swaps the
+ * accumulators out and folds them into account_balances in one transaction. Each row there holds
+ * the cumulative totals of one account at the end of one day, so a balance lookup reads one row
+ * plus the account's unflushed totals, however many vouchers the account has. Lookups never wait
+ * for a flush's writes: until it commits, the batch being flushed is summed from memory.
+ * Totals not yet flushed are lost if the process dies; app.account-balance.flush-interval-ms
+ * bounds that window.
+ */
+@Slf4j
+@Service
+public class AccountBalanceService {
+
+    // Minor units per major unit, matching the scale of voucher amounts
+    private static final int SCALE = 2;
+
+    @Autowired
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Unflushed totals by account and posting date. Recorders and lookups hold the read lock; the
+    // flush takes the write lock only to move pending into flushing and to clear flushing again
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile ConcurrentHashMap<String, ConcurrentHashMap<LocalDate, Totals>> pending = new ConcurrentHashMap<>();
+
+    // The batch being written by the running flush, still counted by lookups until it commits
+    private volatile Map<String, ConcurrentHashMap<LocalDate, Totals>> flushing = Map.of();
+
+    // Odd from just before a flush commits until flushing is cleared. A lookup whose database read
+    // may have overlapped a commit sees it change and reads again, so it never counts a batch twice
+    private final AtomicLong commitSequence = new AtomicLong();
+
+    // Lookups that find commitSequence odd wait on this condition until the flush makes it even again
+    private final Lock commitLock = new ReentrantLock();
+    private final Condition commitDone = commitLock.newCondition();
+
+    // Keeps the scheduled flush and the flush on shutdown from running at once
+    private final Lock flushLock = new ReentrantLock();
+
+    private static final class Totals {
+        private final LongAdder debit = new LongAdder();
+        private final LongAdder credit = new LongAdder();
+    }
+
+    /**
+     * Post an approved voucher to the balances of its accounts. Inside a transaction the voucher is
+     * posted only once that transaction commits
+     * @param debitAccount The account debited
+     * @param creditAccount The account credited
+     * @param amount The voucher amount
+     * @param postingDate The day the voucher counts towards, normally its approval date
+     */
+    public void recordApproval(String debitAccount, String creditAccount, BigDecimal amount, LocalDate postingDate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    post(debitAccount, creditAccount, toMinorUnits(amount), postingDate);
+                }
+            });
+        } else {
+            post(debitAccount, creditAccount, toMinorUnits(amount), postingDate);
+        }
+    }
+
+    /**
+     * @param account The account
+     * @param asOf The last day included
+     * @return The balance of the account at the end of asOf
+     */
+    public AccountBalanceDto getBalance(String account, LocalDate asOf) {
+        long[] totals;
+        while (true) {
+            long sequence = commitSequence.get();
+            if ((sequence & 1) != 0) {
+                // A flush is committing; whether a read sees its rows is unknown until it is done
+                awaitCommit();
+                continue;
+            }
+
+            Map<String, ConcurrentHashMap<LocalDate, Totals>> unflushed;
+            Map<String, ConcurrentHashMap<LocalDate, Totals>> inFlight;
+            swapLock.readLock().lock();
+            try {
+                unflushed = pending;
+                inFlight = flushing;
+            } finally {
+                swapLock.readLock().unlock();
+            }
+
+            totals = new long[2];
+            accountBalanceRepository
+                    .findFirstByAccountAndBalanceDateLessThanEqualOrderByBalanceDateDesc(account, asOf)
+                    .ifPresent(flushed -> {
+                        totals[0] = flushed.getDebitTotal();
+                        totals[1] = flushed.getCreditTotal();
+                    });
+            addUnflushed(totals, inFlight.get(account), asOf);
+            addUnflushed(totals, unflushed.get(account), asOf);
+
+            if (commitSequence.get() == sequence) {
+                break;
+            }
+        }
+        long debit = totals[0];
+        long credit = totals[1];
+
+        return AccountBalanceDto.builder()
+                .account(account)
+                .asOf(asOf)
+                .debitTotal(BigDecimal.valueOf(debit, SCALE))
+                .creditTotal(BigDecimal.valueOf(credit, SCALE))
+                .balance(BigDecimal.valueOf(debit - credit, SCALE))
+                .build();
+    }
+
+    /**
+     * Fold the unflushed totals into account_balances. If the write fails the totals are put back
+     * and retried on the next flush
+     */
+    @Scheduled(fixedDelayString = "${app.account-balance.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            ConcurrentHashMap<String, ConcurrentHashMap<LocalDate, Totals>> batch;
+            swapLock.writeLock().lock();
+            try {
+                batch = pending;
+                if (batch.isEmpty()) {
+                    return;
+                }
+                pending = new ConcurrentHashMap<>();
+                flushing = batch;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            boolean committed = false;
+            try {
+                // Accounts in a fixed order, so flushes of several instances lock them in the same
+                // order and cannot deadlock; days oldest first, so each day builds on the one before
+                transactionTemplate.executeWithoutResult(status -> {
+                    new TreeMap<>(batch).forEach((account, days) ->
+                            new TreeMap<>(days).forEach((date, totals) ->
+                                    apply(account, date, totals.debit.sum(), totals.credit.sum())));
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void beforeCommit(boolean readOnly) {
+                            commitSequence.incrementAndGet();
+                        }
+                    });
+                });
+                committed = true;
+                log.debug("Flushed balance totals of {} accounts", batch.size());
+            } catch (RuntimeException e) {
+                log.warn("Flushing balance totals of {} accounts failed, retrying on the next flush: {}",
+                        batch.size(), e.getMessage());
+            } finally {
+                swapLock.writeLock().lock();
+                try {
+                    if (!committed) {
+                        batch.forEach((account, days) -> days.forEach((date, totals) ->
+                                putBack(account, date, totals.debit.sum(), totals.credit.sum())));
+                    }
+                    flushing = Map.of();
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+                if ((commitSequence.get() & 1) != 0) {
+                    commitLock.lock();
+                    try {
+                        commitSequence.incrementAndGet();
+                        commitDone.signalAll();
+                    } finally {
+                        commitLock.unlock();
+                    }
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    /**
+     * Add one day's totals to the account's row for that day, creating it from the previous
+     * day's cumulative totals if needed, and to the rows of any later days.
+     * The account's ORIGIN row is locked first. Flushes from other instances lock it too, so their
+     * changes to the account wait for this transaction instead of reading the rows it is changing
+     */
+    private void apply(String account, LocalDate date, long debit, long credit) {
+        if (accountBalanceRepository.findWithLockByAccountAndBalanceDate(account, AccountBalance.ORIGIN).isEmpty()) {
+            // The account's first flush; if another instance creates the row at the same time, one
+            // of the flushes fails on the unique key and its totals are put back and retried
+            accountBalanceRepository.saveAndFlush(AccountBalance.builder()
+                    .account(account)
+                    .balanceDate(AccountBalance.ORIGIN)
+                    .build());
+        }
+
+        AccountBalance latest = accountBalanceRepository
+                .findFirstByAccountAndBalanceDateLessThanEqualOrderByBalanceDateDesc(account, date)
+                .orElseThrow();
+        if (!latest.getBalanceDate().equals(date)) {
+            accountBalanceRepository.save(AccountBalance.builder()
+                    .account(account)
+                    .balanceDate(date)
+                    .debitTotal(latest.getDebitTotal())
+                    .creditTotal(latest.getCreditTotal())
+                    .build());
+        }
+
+        // Later days only exist for back-dated postings; approvals are normally posted on the latest day
+        accountBalanceRepository.addToDaysFrom(account, date, debit, credit);
+    }
+
+    /**
+     * Block until the committing flush has finished. Blocking rather than spinning keeps lookups
+     * from burning a core, and lets virtual threads unmount, for the whole commit round trip
+     */
+    private void awaitCommit() {
+        commitLock.lock();
+        try {
+            while ((commitSequence.get() & 1) != 0) {
+                commitDone.awaitUninterruptibly();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private static void addUnflushed(long[] totals, Map<LocalDate, Totals> days, LocalDate asOf) {
+        if (days == null) {
+            return;
+        }
+        for (Map.Entry<LocalDate, Totals> day : days.entrySet()) {
+            if (!day.getKey().isAfter(asOf)) {
+                totals[0] += day.getValue().debit.sum();
+                totals[1] += day.getValue().credit.sum();
+            }
+        }
+    }
+
+    private void post(String debitAccount, String creditAccount, long amount, LocalDate postingDate) {
+        swapLock.readLock().lock();
+        try {
+            totals(debitAccount, postingDate).debit.add(amount);
+            totals(creditAccount, postingDate).credit.add(amount);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void putBack(String account, LocalDate postingDate, long debit, long credit) {
+        swapLock.readLock().lock();
+        try {
+            Totals totals = totals(account, postingDate);
+            totals.debit.add(debit);
+            totals.credit.add(credit);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private Totals totals(String account, LocalDate postingDate) {
+        return pending.computeIfAbsent(account, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(postingDate, key -> new Totals());
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
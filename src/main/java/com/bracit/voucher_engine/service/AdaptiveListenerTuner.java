@@ -0,0 +1,254 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.config.RabbitMQConfig;
+import com.bracit.voucher_engine.dto.ListenerTuningDecision;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feedback controller for the bulk debit voucher listener container.
+ * Every interval it looks at the average batch commit latency, the queue depth and the
+ * consumer lag (time to drain the queue at the current consume rate) and adjusts batch size,
+ * prefetch, receive timeout and consumer count within the configured bounds:
+ * - commit latency well above target: halve the batch size and drop a consumer
+ * - growing backlog with healthy latency: grow the batch size and add a consumer
+ * - trickle traffic: shrink batches and receive timeout so messages are not held back
+ */
+@Service
+public class AdaptiveListenerTuner {
+
+    private static final int HISTORY_SIZE = 20;
+
+    @Autowired
+    private RabbitListenerEndpointRegistry listenerEndpointRegistry;
+
+    @Autowired
+    private AmqpAdmin amqpAdmin;
+
+    @Value("${app.adaptive-listener.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.adaptive-listener.min-batch-size:10}")
+    private int minBatchSize;
+
+    @Value("${app.adaptive-listener.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${app.adaptive-listener.batch-size-step:50}")
+    private int batchSizeStep;
+
+    @Value("${app.adaptive-listener.min-consumers:1}")
+    private int minConsumers;
+
+    @Value("${app.adaptive-listener.max-consumers:16}")
+    private int maxConsumers;
+
+    @Value("${app.adaptive-listener.prefetch-multiplier:2}")
+    private int prefetchMultiplier;
+
+    @Value("${app.adaptive-listener.target-commit-latency-ms:200}")
+    private double targetCommitLatencyMs;
+
+    @Value("${app.adaptive-listener.target-lag-seconds:30}")
+    private double targetLagSeconds;
+
+    @Value("${app.adaptive-listener.min-receive-timeout:100}")
+    private long minReceiveTimeout;
+
+    @Value("${app.adaptive-listener.restart-cooldown-ms:60000}")
+    private long restartCooldownMs;
+
+    @Value("${app.batch-consumer.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.batch-consumer.receive-timeout:1000}")
+    private long maxReceiveTimeout;
+
+    @Value("${app.bulk-consumption.listener-concurrency:4}")
+    private int concurrentConsumers;
+
+    private int prefetchCount;
+    private long receiveTimeout;
+
+    // Prefetch is applied when a consumer starts; this is the value the running consumers use
+    private int startedPrefetchCount;
+    private long lastRestartMillis;
+    private long lastTickNanos = System.nanoTime();
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder messageCount = new LongAdder();
+    private final LongAdder commitNanos = new LongAdder();
+
+    private final Deque<ListenerTuningDecision> history = new ArrayDeque<>();
+
+    /**
+     * Record a listener batch that has been written and committed
+     * @param messages Number of messages in the batch
+     * @param elapsedNanos Time taken to write and commit the batch
+     */
+    public void recordBatch(int messages, long elapsedNanos) {
+        batchCount.increment();
+        messageCount.add(messages);
+        commitNanos.add(elapsedNanos);
+    }
+
+    /**
+     * Observe the listener and adjust its container settings
+     */
+    @Scheduled(fixedDelayString = "${app.adaptive-listener.interval-ms:5000}")
+    public synchronized void tune() {
+        if (prefetchCount == 0) {
+            prefetchCount = batchSize * 2;
+            startedPrefetchCount = prefetchCount;
+            receiveTimeout = maxReceiveTimeout;
+        }
+
+        long now = System.nanoTime();
+        double intervalSeconds = (now - lastTickNanos) / 1_000_000_000.0;
+        lastTickNanos = now;
+
+        long batches = batchCount.sumThenReset();
+        long messages = messageCount.sumThenReset();
+        long nanos = commitNanos.sumThenReset();
+
+        double avgCommitLatencyMs = batches > 0 ? nanos / 1_000_000.0 / batches : 0;
+        double consumeRate = intervalSeconds > 0 ? messages / intervalSeconds : 0;
+        long queueDepth = getQueueDepth();
+        double lagSeconds = queueDepth <= 0 ? 0
+                : consumeRate > 0 ? queueDepth / consumeRate : Double.POSITIVE_INFINITY;
+
+        String action;
+        if (!enabled) {
+            action = "disabled";
+        } else if (queueDepth < 0) {
+            action = "queue depth unavailable";
+        } else {
+            action = decide(avgCommitLatencyMs, queueDepth, lagSeconds);
+            apply();
+        }
+
+        record(ListenerTuningDecision.builder()
+                .timestamp(Instant.now())
+                .enabled(enabled)
+                .queueDepth(queueDepth)
+                .consumeRatePerSecond(consumeRate)
+                .lagSeconds(lagSeconds)
+                .avgCommitLatencyMs(avgCommitLatencyMs)
+                .batchSize(batchSize)
+                .prefetchCount(prefetchCount)
+                .concurrentConsumers(concurrentConsumers)
+                .receiveTimeoutMs(receiveTimeout)
+                .action(action)
+                .build());
+    }
+
+    /**
+     * Compute the next settings from the current observations
+     * @return A short description of the adjustment made
+     */
+    private String decide(double avgCommitLatencyMs, long queueDepth, double lagSeconds) {
+        if (avgCommitLatencyMs > targetCommitLatencyMs * 1.5) {
+            // The database is the bottleneck: back off multiplicatively
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+            concurrentConsumers = Math.max(minConsumers, concurrentConsumers - 1);
+            receiveTimeout = maxReceiveTimeout;
+            return "commit latency above target, backing off";
+        }
+
+        if (queueDepth > (long) batchSize * concurrentConsumers && lagSeconds > targetLagSeconds) {
+            // Burst: larger batches amortise commits, more consumers drain faster
+            receiveTimeout = maxReceiveTimeout;
+            if (avgCommitLatencyMs < targetCommitLatencyMs) {
+                batchSize = Math.min(maxBatchSize, batchSize + batchSizeStep);
+                concurrentConsumers = Math.min(maxConsumers, concurrentConsumers + 1);
+                return "backlog growing, scaling up";
+            }
+            return "backlog growing, commit latency near target";
+        }
+
+        if (queueDepth < batchSize) {
+            // Trickle: do not hold messages back waiting for a batch to fill
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+            concurrentConsumers = Math.max(minConsumers, concurrentConsumers - 1);
+            receiveTimeout = Math.max(minReceiveTimeout, receiveTimeout / 2);
+            return "trickle traffic, scaling down";
+        }
+
+        return "hold";
+    }
+
+    /**
+     * Push the current settings to the listener container
+     */
+    private void apply() {
+        MessageListenerContainer listenerContainer =
+                listenerEndpointRegistry.getListenerContainer(BulkDebitVoucherConsumer.LISTENER_ID);
+        if (!(listenerContainer instanceof SimpleMessageListenerContainer container)) {
+            return;
+        }
+
+        prefetchCount = batchSize * prefetchMultiplier;
+        container.setBatchSize(batchSize);
+        container.setReceiveTimeout(receiveTimeout);
+        container.setPrefetchCount(prefetchCount);
+        container.setConcurrentConsumers(concurrentConsumers);
+
+        // Running consumers keep the prefetch they started with. If batches no longer fit in it
+        // (or it is far too large) restart them; messages in flight are requeued, not lost,
+        // because batches are only acked after commit
+        boolean prefetchTooSmall = startedPrefetchCount < batchSize;
+        boolean prefetchTooLarge = startedPrefetchCount > prefetchCount * 4;
+        long nowMillis = System.currentTimeMillis();
+        if (container.isRunning() && (prefetchTooSmall || prefetchTooLarge)
+                && nowMillis - lastRestartMillis > restartCooldownMs) {
+            container.stop();
+            container.start();
+            startedPrefetchCount = prefetchCount;
+            lastRestartMillis = nowMillis;
+        }
+    }
+
+    private long getQueueDepth() {
+        try {
+            QueueInformation queueInformation = amqpAdmin.getQueueInfo(RabbitMQConfig.DEBIT_VOUCHER_QUEUE);
+            return queueInformation != null ? queueInformation.getMessageCount() : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private void record(ListenerTuningDecision decision) {
+        history.addLast(decision);
+        while (history.size() > HISTORY_SIZE) {
+            history.removeFirst();
+        }
+    }
+
+    /**
+     * @return The most recent tuning decision, or null if the controller has not run yet
+     */
+    public synchronized ListenerTuningDecision getCurrentDecision() {
+        return history.peekLast();
+    }
+
+    /**
+     * @return The most recent tuning decisions, oldest first
+     */
+    public synchronized List<ListenerTuningDecision> getRecentDecisions() {
+        return new ArrayList<>(history);
+    }
+}
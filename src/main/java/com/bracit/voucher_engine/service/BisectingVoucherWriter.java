@@ -0,0 +1,150 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.BulkWriteResult;
+import com.bracit.voucher_engine.dto.FailedVoucher;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.model.VoucherType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a batch through a VoucherBulkWriter and isolates the vouchers that make it fail.
+ * Errors are classified first:
+ * - retryable (database unreachable, lock or serialization conflicts, timeouts): the write is
+ *   retried in place a few times, then the error is thrown so the caller can requeue the batch
+ * - permanent (constraint violations, bad data): the batch is split in halves and each half is
+ *   written again, recursively, until the failing vouchers are isolated. Healthy halves are
+ *   committed as they succeed, so k bad vouchers in a batch of n cost O(k log n) batch writes
+ *   instead of n single inserts
+ * Halves committed before a later retryable error are safe to redeliver: bulk writes skip
+ * voucher numbers that are already stored.
+ */
+@Slf4j
+@Service
+public class BisectingVoucherWriter {
+
+    @Autowired
+    private List<VoucherBulkWriter> bulkWriters;
+
+    @Autowired
+    private VoucherPipelineMetrics metrics;
+
+    @Value("${app.bulk-writer.transient-retries:2}")
+    private int transientRetries;
+
+    @Value("${app.bulk-writer.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    private Map<VoucherType, VoucherBulkWriter> writers;
+
+    @PostConstruct
+    public void init() {
+        writers = VoucherType.index(bulkWriters, VoucherBulkWriter::getType);
+    }
+
+    /**
+     * Write a batch through the bulk writer of its voucher type, isolating vouchers that fail permanently
+     * @param type The type of the vouchers
+     * @param batch The vouchers to write
+     * @return The vouchers that failed permanently, each with the error of its own write
+     * @throws RuntimeException the last retryable error, if the database stayed unavailable
+     */
+    public List<FailedVoucher> write(VoucherType type, List<? extends VoucherMessage> batch) {
+        VoucherBulkWriter writer = writers.get(type);
+        try {
+            writeWithRetry(writer, batch);
+            return List.of();
+        } catch (RuntimeException e) {
+            if (isRetryable(e)) {
+                throw e;
+            }
+            log.warn("Bulk write of {} vouchers failed: {}. Bisecting to isolate the failing vouchers",
+                    batch.size(), e.getMessage());
+            metrics.recordFallback();
+            List<FailedVoucher> failures = new ArrayList<>();
+            bisect(writer, batch, e, failures);
+            return failures;
+        }
+    }
+
+    /**
+     * Classify a write error
+     * @param e The error, possibly wrapped (e.g. in a CompletionException)
+     * @return true if the write may succeed when retried unchanged
+     */
+    public static boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Split a batch known to fail into halves and write each, recursing into halves that fail
+     */
+    private void bisect(VoucherBulkWriter writer, List<? extends VoucherMessage> batch, RuntimeException batchError,
+                        List<FailedVoucher> failures) {
+        if (batch.size() == 1) {
+            failures.add(new FailedVoucher(batch.get(0), String.valueOf(batchError.getMessage())));
+            return;
+        }
+        int middle = batch.size() / 2;
+        for (List<? extends VoucherMessage> half : List.of(batch.subList(0, middle), batch.subList(middle, batch.size()))) {
+            try {
+                writeWithRetry(writer, half);
+            } catch (RuntimeException e) {
+                if (isRetryable(e)) {
+                    throw e;
+                }
+                bisect(writer, half, e, failures);
+            }
+        }
+    }
+
+    private void writeWithRetry(VoucherBulkWriter writer, List<? extends VoucherMessage> batch) {
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                BulkWriteResult result = writer.write(batch);
+                metrics.recordDbWrite(result);
+                return;
+            } catch (RuntimeException e) {
+                metrics.recordDbWriteFailed(writer.getName(), System.nanoTime() - start);
+                if (!isRetryable(e) || attempt >= transientRetries || !sleep(retryBackoffMs * (attempt + 1))) {
+                    throw e;
+                }
+                log.debug("Retrying bulk write of {} vouchers after a retryable error: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.config.RabbitMQConfig;
+import com.bracit.voucher_engine.dto.CreditVoucherMessage;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.rabbitmq.client.Channel;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Service for consuming and processing bulk credit vouchers from RabbitMQ
+ * Uses virtual threads for improved performance and scalability
+ */
+@Service
+public class BulkCreditVoucherConsumer extends AbstractBulkVoucherConsumer<CreditVoucherMessage> {
+
+    /**
+     * Id of the batch listener container, used to look it up in the RabbitListenerEndpointRegistry
+     */
+    public static final String LISTENER_ID = "bulkCreditVoucherListener";
+
+    public BulkCreditVoucherConsumer() {
+        super(VoucherType.CREDIT);
+    }
+
+    /**
+     * Consumes batches of credit voucher messages from RabbitMQ
+     * @param messages The batch of credit voucher messages received from RabbitMQ
+     * @param channel The channel the batch was received on, used for manual acknowledgement
+     */
+    @RabbitListener(id = LISTENER_ID,
+                   queues = RabbitMQConfig.CREDIT_VOUCHER_QUEUE,
+                   containerFactory = "batchListenerContainerFactory",
+                   concurrency = "${app.bulk-consumption.listener-concurrency:4}")
+    public void receiveBatchCreditVouchers(List<Message<CreditVoucherMessage>> messages, Channel channel) throws IOException {
+        receiveBatch(messages, channel);
+    }
+}
@@ -0,0 +1,31 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.CreditVoucherMessage;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Service for generating and publishing bulk credit vouchers (numbered CV...) to RabbitMQ
+ */
+@Service
+public class BulkCreditVoucherProducer extends AbstractBulkVoucherProducer<CreditVoucherMessage> {
+
+    // Any odd constant works; it only has to differ from the debit producer's salt of 0
+    private static final long CREDIT_SALT = 0x632BE59BD9B4E019L;
+
+    public BulkCreditVoucherProducer() {
+        super(VoucherType.CREDIT, "CV", CREDIT_SALT);
+    }
+
+    @Override
+    protected CreditVoucherMessage newMessage(String voucherNumber, LocalDate voucherDate, BigDecimal amount,
+                                              String description, String createdBy, LocalDate createdDate,
+                                              VoucherStatus status, String debitAccount, String creditAccount) {
+        return new CreditVoucherMessage(voucherNumber, voucherDate, amount, description, createdBy, createdDate,
+                status, debitAccount, creditAccount);
+    }
+}
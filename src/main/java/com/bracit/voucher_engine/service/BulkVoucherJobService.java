@@ -0,0 +1,319 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.BulkJobStatus;
+import com.bracit.voucher_engine.dto.FailedVoucher;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.exception.BulkGenerationTimeoutException;
+import com.bracit.voucher_engine.exception.BulkJobLimitException;
+import com.bracit.voucher_engine.exception.ResourceNotFoundException;
+import com.bracit.voucher_engine.model.VoucherType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs bulk voucher generation and ingestion as asynchronous jobs.
+ * Each job runs on a virtual thread and is tracked by id, so a request only starts the work and
+ * clients poll for progress, rate and ETA or cancel it. Cancellation is cooperative: no new
+ * batches are started and batches already in flight are allowed to finish, so counts stay exact.
+ * Finished jobs are kept for inspection up to app.bulk-jobs.history-size.
+ */
+@Slf4j
+@Service
+public class BulkVoucherJobService {
+
+    @Autowired
+    private List<AbstractBulkVoucherProducer<?>> bulkProducers;
+
+    @Autowired
+    private List<VoucherService<?>> voucherServices;
+
+    @Autowired
+    private BisectingVoucherWriter bisectingWriter;
+
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Autowired
+    @Qualifier("boundedVirtualThreadExecutor")
+    private ExecutorService boundedVirtualThreadExecutor;
+
+    @Value("${app.bulk-jobs.max-running:4}")
+    private int maxRunning;
+
+    @Value("${app.bulk-jobs.history-size:50}")
+    private int historySize;
+
+    @Value("${app.bulk-consumption.batch-size:100}")
+    private int ingestBatchSize;
+
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+
+    private Map<VoucherType, AbstractBulkVoucherProducer<?>> producers;
+    private Map<VoucherType, VoucherService<?>> services;
+
+    // Next unused generation index per voucher type, so each job gets its own voucher numbers
+    private final Map<VoucherType, AtomicLong> nextIndexes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        producers = VoucherType.index(bulkProducers, AbstractBulkVoucherProducer::getType);
+        services = VoucherType.index(voucherServices, VoucherService::getVoucherType);
+    }
+
+    /**
+     * Start generating and publishing vouchers in the background
+     * @param voucherType The type of voucher to generate
+     * @param count Number of vouchers to generate and publish
+     * @param batchSize Size of each batch for processing
+     * @param threadCount Maximum number of batches generated or being published at the same time
+     * @param startIndex Index of the first voucher number, or null for the next range no earlier job used
+     * @return The status of the new job
+     * @throws BulkJobLimitException if app.bulk-jobs.max-running jobs are already running
+     */
+    public BulkJobStatus startGeneration(VoucherType voucherType, long count, int batchSize, int threadCount,
+                                         Long startIndex) {
+        AbstractBulkVoucherProducer<?> producer = producers.get(voucherType);
+        BulkJob job = register(BulkJobStatus.Type.GENERATE, voucherType, count);
+        long start;
+        try {
+            start = reserveIndexes(producer, startIndex, count);
+        } catch (RuntimeException e) {
+            // The job never runs, so it must not keep holding a running slot
+            log.warn("Bulk job {} failed to reserve voucher numbers: {}", job.id, e.getMessage());
+            job.finish(BulkJobStatus.State.FAILED, e.getMessage());
+            throw e;
+        }
+        job.startIndex = start;
+        CompletableFuture.runAsync(() -> run(job, () ->
+                producer.generateAndPublishBulkVouchers(start, count, batchSize, threadCount, job)), virtualThreadExecutor);
+        return job.toStatus();
+    }
+
+    /**
+     * Start writing vouchers to the database in the background, in batches through the
+     * bisecting bulk writer. Batches run on the bounded DB write executor, so an ingestion job
+     * never holds more connections than the consumers are allowed to
+     * @param voucherType The type of the vouchers
+     * @param messages The vouchers to write
+     * @return The status of the new job
+     * @throws BulkJobLimitException if app.bulk-jobs.max-running jobs are already running
+     */
+    public BulkJobStatus startIngestion(VoucherType voucherType, List<? extends VoucherMessage> messages) {
+        BulkJob job = register(BulkJobStatus.Type.INGEST, voucherType, messages.size());
+        CompletableFuture.runAsync(() -> run(job, () -> ingest(messages, job)), virtualThreadExecutor);
+        return job.toStatus();
+    }
+
+    /**
+     * @param id The job id
+     * @return The current status of the job
+     * @throws ResourceNotFoundException if there is no such job
+     */
+    public BulkJobStatus getJob(String id) {
+        return findJob(id).toStatus();
+    }
+
+    /**
+     * @return All tracked jobs, most recently started first
+     */
+    public List<BulkJobStatus> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((BulkJob job) -> job.startedAt).reversed())
+                .map(BulkJob::toStatus)
+                .toList();
+    }
+
+    /**
+     * Ask a running job to stop after the batches already in flight
+     * @param id The job id
+     * @return The status of the job
+     * @throws ResourceNotFoundException if there is no such job
+     */
+    public BulkJobStatus cancelJob(String id) {
+        BulkJob job = findJob(id);
+        if (job.state == BulkJobStatus.State.RUNNING) {
+            job.cancelRequested = true;
+            log.info("Cancellation requested for bulk job {}", id);
+        }
+        return job.toStatus();
+    }
+
+    private synchronized BulkJob register(BulkJobStatus.Type type, VoucherType voucherType, long requested) {
+        long running = jobs.values().stream().filter(job -> job.state == BulkJobStatus.State.RUNNING).count();
+        if (running >= maxRunning) {
+            throw new BulkJobLimitException("Already running " + running + " bulk jobs");
+        }
+
+        // Forget the oldest finished jobs beyond the history size
+        List<BulkJob> finished = jobs.values().stream()
+                .filter(job -> job.state != BulkJobStatus.State.RUNNING)
+                .sorted(Comparator.comparing((BulkJob job) -> job.startedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - historySize + 1; i++) {
+            jobs.remove(finished.get(i).id);
+        }
+
+        BulkJob job = new BulkJob(UUID.randomUUID().toString(), type, voucherType, requested);
+        jobs.put(job.id, job);
+        log.info("Started bulk {} job {} for {} {} vouchers", type, job.id, requested, voucherType);
+        return job;
+    }
+
+    /**
+     * Reserve count generation indexes. The first reservation of a type starts after the highest
+     * generated voucher number already stored, so jobs of earlier runs are not repeated either;
+     * vouchers of those jobs still waiting in the queue are not seen and end up skipped as duplicates
+     * @param startIndex An explicit start index, or null to take the next free range
+     * @return The first index of the range
+     */
+    private long reserveIndexes(AbstractBulkVoucherProducer<?> producer, Long startIndex, long count) {
+        AtomicLong next = nextIndexes.computeIfAbsent(producer.getType(), type -> new AtomicLong(
+                services.get(type).getHighestVoucherNumber(producer.getNumberPrefix())
+                        .map(producer::parseIndex)
+                        .orElse(-1L) + 1));
+        if (startIndex != null) {
+            next.accumulateAndGet(startIndex + count, Math::max);
+            return startIndex;
+        }
+        return next.getAndAdd(count);
+    }
+
+    private BulkJob findJob(String id) {
+        BulkJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Bulk job not found with id: " + id);
+        }
+        return job;
+    }
+
+    private void run(BulkJob job, Runnable work) {
+        try {
+            work.run();
+            job.finish(job.cancelRequested ? BulkJobStatus.State.CANCELLED : BulkJobStatus.State.COMPLETED, null);
+        } catch (BulkGenerationTimeoutException e) {
+            log.warn("Bulk job {} timed out: {}", job.id, e.getMessage());
+            job.finish(BulkJobStatus.State.TIMED_OUT, e.getMessage());
+        } catch (Exception e) {
+            log.warn("Bulk job {} failed: {}", job.id, e.getMessage());
+            job.finish(BulkJobStatus.State.FAILED, e.getMessage());
+        }
+        log.info("Bulk job {} {}: {} of {} vouchers succeeded", job.id, job.state, job.succeeded.get(), job.requested);
+    }
+
+    private void ingest(List<? extends VoucherMessage> messages, BulkJob job) {
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int i = 0; i < messages.size() && !job.isCancelled(); i += ingestBatchSize) {
+            List<? extends VoucherMessage> batch = messages.subList(i, Math.min(i + ingestBatchSize, messages.size()));
+            // Blocks while all DB write permits are taken, which bounds the work in flight
+            batches.add(CompletableFuture.runAsync(() -> writeBatch(batch, job), boundedVirtualThreadExecutor));
+        }
+        CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void writeBatch(List<? extends VoucherMessage> batch, BulkJob job) {
+        try {
+            List<FailedVoucher> failures = bisectingWriter.write(job.voucherType, batch);
+            if (!failures.isEmpty()) {
+                job.error = failures.get(0).getError();
+            }
+            job.onBatchPublished(batch.size(), batch.size() - failures.size());
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.onBatchPublished(batch.size(), 0);
+        }
+    }
+
+    /**
+     * Mutable state of one job, updated from the worker threads and read by status requests
+     */
+    private static final class BulkJob implements AbstractBulkVoucherProducer.GenerationProgress {
+        private final String id;
+        private final BulkJobStatus.Type type;
+        private final VoucherType voucherType;
+        private final long requested;
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private volatile boolean cancelRequested;
+        private volatile BulkJobStatus.State state = BulkJobStatus.State.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile long finishedNanos;
+        private volatile String error;
+        private volatile Long startIndex;
+
+        private BulkJob(String id, BulkJobStatus.Type type, VoucherType voucherType, long requested) {
+            this.id = id;
+            this.type = type;
+            this.voucherType = voucherType;
+            this.requested = requested;
+        }
+
+        @Override
+        public void onBatchPublished(long generated, long confirmed) {
+            processed.addAndGet(generated);
+            succeeded.addAndGet(confirmed);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelRequested;
+        }
+
+        private void finish(BulkJobStatus.State finalState, String failure) {
+            finishedNanos = System.nanoTime();
+            finishedAt = Instant.now();
+            if (failure != null) {
+                error = failure;
+            }
+            state = finalState;
+        }
+
+        private BulkJobStatus toStatus() {
+            BulkJobStatus.State currentState = state;
+            long done = processed.get();
+            long ok = succeeded.get();
+            long endNanos = currentState == BulkJobStatus.State.RUNNING ? System.nanoTime() : finishedNanos;
+            double elapsedSeconds = (endNanos - startNanos) / 1_000_000_000.0;
+            double rate = elapsedSeconds > 0 ? done / elapsedSeconds : 0;
+            Double eta = currentState == BulkJobStatus.State.RUNNING && rate > 0
+                    ? (requested - done) / rate
+                    : null;
+
+            return BulkJobStatus.builder()
+                    .id(id)
+                    .type(type)
+                    .voucherType(voucherType)
+                    .state(currentState)
+                    .cancelRequested(cancelRequested)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .requested(requested)
+                    .startIndex(startIndex)
+                    .processed(done)
+                    .succeeded(ok)
+                    .failed(done - ok)
+                    .percentComplete(requested > 0 ? done * 100.0 / requested : 100)
+                    .ratePerSecond(rate)
+                    .etaSeconds(eta)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.config.RabbitMQConfig;
+import com.bracit.voucher_engine.dto.VoucherEventMessage;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.messaging.VoucherRoute;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.batch.MessageBatch;
+import org.springframework.amqp.rabbit.batch.SimpleBatchingStrategy;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes voucher messages with correlated publisher confirms and mandatory returns.
+ * Messages (or batches of messages, packed with SimpleBatchingStrategy so consumers debatch them
+ * as before) are sent without waiting for each confirm; a semaphore bounds the number of
+ * unconfirmed publishes across the application so publishing stays pipelined without unbounded
+ * memory. A publish counts as delivered only when the broker acks it and did not return it as
+ * unroutable; nacked, returned, timed-out and failed sends are retried up to max-retries times.
+ * Retries can duplicate a message whose confirm was lost; consumers skip duplicate voucher numbers.
+ * Voucher events go through the same pipeline, one message per event.
+ */
+@Slf4j
+@Service
+public class ConfirmingVoucherPublisher {
+
+    private static final long RETRY_BACKOFF_MS = 100;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private MessageConverter voucherMessageConverter;
+
+    @Autowired
+    @Qualifier("voucherCompressor")
+    private MessagePostProcessor voucherCompressor;
+
+    @Autowired
+    private VoucherPipelineMetrics metrics;
+
+    @Value("${app.batch-consumer.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.publisher.confirm-timeout-ms:10000}")
+    private long confirmTimeoutMs;
+
+    @Value("${app.publisher.max-retries:3}")
+    private int maxRetries;
+
+    private final Semaphore inFlight;
+
+    // requireRoute: a return from the broker (no queue bound) counts as a failed publish
+    private record PendingPublish(String exchange, String routingKey, Message message, int voucherCount,
+                                  int index, boolean requireRoute) {
+    }
+
+    private record SentPublish(PendingPublish publish, CorrelationData correlationData,
+                               CompletableFuture<Boolean> delivered) {
+    }
+
+    public ConfirmingVoucherPublisher(@Value("${app.publisher.max-in-flight:64}") int maxInFlight) {
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Publish debit vouchers and wait until every publish is confirmed or has run out of retries
+     * @param vouchers The vouchers to publish
+     * @param batched true to pack vouchers into batch messages, false to publish one message each
+     * @return The number of vouchers confirmed by the broker
+     */
+    public long publish(List<? extends VoucherMessage> vouchers, boolean batched) {
+        return publish(VoucherRoute.DEBIT, vouchers, batched);
+    }
+
+    /**
+     * Publish vouchers to the exchange of a route and wait until every publish is confirmed or
+     * has run out of retries
+     * @param route The route of the voucher type
+     * @param vouchers The vouchers to publish
+     * @param batched true to pack vouchers into batch messages, false to publish one message each
+     * @return The number of vouchers confirmed by the broker
+     */
+    public long publish(VoucherRoute route, List<? extends VoucherMessage> vouchers, boolean batched) {
+        String mode = batched ? VoucherPipelineMetrics.MODE_BATCH : VoucherPipelineMetrics.MODE_SINGLE;
+        List<PendingPublish> pending = batched ? toBatches(route, vouchers) : toMessages(route, vouchers);
+        return deliver(pending, mode).stream().mapToLong(PendingPublish::voucherCount).sum();
+    }
+
+    /**
+     * Publish voucher events to the voucher event exchange, one message each, and wait until every
+     * publish is confirmed or has run out of retries. An event no queue is bound for is dropped
+     * by the exchange, which counts as delivered
+     * @param events The events to publish
+     * @return For each event, whether the broker confirmed it
+     */
+    public boolean[] publishEvents(List<VoucherEventMessage> events) {
+        List<PendingPublish> pending = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            VoucherEventMessage event = events.get(i);
+            MessageProperties properties = new MessageProperties();
+            properties.setMessageId(String.valueOf(event.eventId()));
+            properties.setTimestamp(new Date());
+            pending.add(new PendingPublish(RabbitMQConfig.VOUCHER_EVENTS_EXCHANGE, event.routingKey(),
+                    voucherMessageConverter.toMessage(event, properties), 1, i, false));
+        }
+
+        boolean[] confirmed = new boolean[events.size()];
+        for (PendingPublish publish : deliver(pending, VoucherPipelineMetrics.MODE_EVENT)) {
+            confirmed[publish.index()] = true;
+        }
+        return confirmed;
+    }
+
+    /**
+     * Send publishes in rounds, retrying the unconfirmed ones up to max-retries times
+     * @return The publishes confirmed by the broker
+     */
+    private List<PendingPublish> deliver(List<PendingPublish> pending, String mode) {
+        List<PendingPublish> confirmed = new ArrayList<>(pending.size());
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                if (attempt > maxRetries) {
+                    break;
+                }
+                int retried = pending.stream().mapToInt(PendingPublish::voucherCount).sum();
+                metrics.recordPublishRetried(mode, retried);
+                log.debug("Retrying {} unconfirmed publishes ({} vouchers), attempt {}", pending.size(), retried, attempt);
+                if (!sleep(RETRY_BACKOFF_MS * attempt)) {
+                    break;
+                }
+            }
+
+            // Send the whole round before waiting so confirms overlap with publishing
+            List<SentPublish> sent = new ArrayList<>(pending.size());
+            for (PendingPublish publish : pending) {
+                if (!acquirePermit()) {
+                    break;
+                }
+                sent.add(send(publish));
+            }
+
+            List<PendingPublish> failed = new ArrayList<>(pending.subList(sent.size(), pending.size()));
+            for (SentPublish publish : sent) {
+                if (publish.delivered().join()) {
+                    confirmed.add(publish.publish());
+                } else {
+                    failed.add(publish.publish());
+                }
+            }
+            pending = failed;
+        }
+
+        metrics.recordPublished(mode, confirmed.stream().mapToLong(PendingPublish::voucherCount).sum());
+        long unconfirmed = pending.stream().mapToInt(PendingPublish::voucherCount).sum();
+        if (unconfirmed > 0) {
+            metrics.recordPublishFailed(mode, unconfirmed);
+            log.warn("{} vouchers ({}) were not confirmed by the broker after {} retries", unconfirmed, mode, maxRetries);
+        }
+        return confirmed;
+    }
+
+    /**
+     * Send one message with a correlation id; the returned future completes with true only for
+     * an ack of a message that was not returned. The in-flight permit is released on completion
+     */
+    private SentPublish send(PendingPublish publish) {
+        CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+        CompletableFuture<Boolean> delivered;
+        try {
+            rabbitTemplate.send(publish.exchange(), publish.routingKey(), publish.message(), correlationData);
+            delivered = correlationData.getFuture()
+                    .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                    .handle((confirm, error) -> {
+                        if (error != null) {
+                            metrics.recordPublishRejected("timeout");
+                            return false;
+                        }
+                        if (!confirm.isAck()) {
+                            metrics.recordPublishRejected("nack");
+                            log.debug("Publish {} nacked: {}", correlationData.getId(), confirm.getReason());
+                            return false;
+                        }
+                        if (publish.requireRoute() && correlationData.getReturned() != null) {
+                            metrics.recordPublishRejected("returned");
+                            log.debug("Publish {} returned: {}", correlationData.getId(),
+                                    correlationData.getReturned().getReplyText());
+                            return false;
+                        }
+                        return true;
+                    });
+        } catch (RuntimeException e) {
+            metrics.recordPublishRejected("error");
+            log.debug("Publish failed: {}", e.getMessage());
+            delivered = CompletableFuture.completedFuture(false);
+        }
+        return new SentPublish(publish, correlationData, delivered.whenComplete((ok, error) -> inFlight.release()));
+    }
+
+    private List<PendingPublish> toMessages(VoucherRoute route, List<? extends VoucherMessage> vouchers) {
+        List<PendingPublish> messages = new ArrayList<>(vouchers.size());
+        for (VoucherMessage voucher : vouchers) {
+            messages.add(new PendingPublish(route.exchange(), route.routingKey(), toAmqpMessage(voucher), 1,
+                    messages.size(), true));
+        }
+        return messages;
+    }
+
+    /**
+     * Pack vouchers into batch messages of up to batch-size vouchers, in the format
+     * BatchingRabbitTemplate produces, then compress each batch if compression is configured
+     */
+    private List<PendingPublish> toBatches(VoucherRoute route, List<? extends VoucherMessage> vouchers) {
+        List<PendingPublish> batches = new ArrayList<>();
+        for (int start = 0; start < vouchers.size(); start += batchSize) {
+            List<? extends VoucherMessage> chunk = vouchers.subList(start, Math.min(start + batchSize, vouchers.size()));
+            // One strategy per chunk with no size limit, so the chunk becomes exactly one batch
+            SimpleBatchingStrategy batchingStrategy = new SimpleBatchingStrategy(chunk.size(), Integer.MAX_VALUE, Long.MAX_VALUE);
+            MessageBatch batch = null;
+            for (VoucherMessage voucher : chunk) {
+                batch = batchingStrategy.addToBatch(route.exchange(), route.routingKey(), toAmqpMessage(voucher));
+            }
+            batches.add(new PendingPublish(route.exchange(), route.routingKey(),
+                    voucherCompressor.postProcessMessage(batch.message()), chunk.size(), batches.size(), true));
+        }
+        return batches;
+    }
+
+    private Message toAmqpMessage(VoucherMessage voucher) {
+        MessageProperties properties = new MessageProperties();
+        long now = System.currentTimeMillis();
+        properties.setTimestamp(new Date(now));
+        // Lets consumers measure end-to-end latency in milliseconds
+        properties.setHeader(RabbitMQConfig.HEADER_PUBLISHED_AT, now);
+        return voucherMessageConverter.toMessage(voucher, properties);
+    }
+
+    private boolean acquirePermit() {
+        try {
+            inFlight.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.CreditVoucherDto;
+
+public interface CreditVoucherService extends VoucherService<CreditVoucherDto> {
+}
@@ -0,0 +1,140 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.DebitVoucherDto;
+import com.bracit.voucher_engine.dto.VoucherCacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache for debit voucher lookups by id and by voucher number.
+ * Vouchers are stored once, keyed by id; the voucher number cache only maps numbers to ids.
+ * Entries expire after the configured TTL and are evicted explicitly whenever the service
+ * changes a voucher. Cached DTOs are shared and must not be modified by callers.
+ */
+@Service
+public class DebitVoucherCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.voucher-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.voucher-cache.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${app.voucher-cache.ttl:PT10M}")
+    private Duration ttl;
+
+    private Cache<Long, DebitVoucherDto> vouchersById;
+    private Cache<String, Long> idsByNumber;
+
+    @PostConstruct
+    public void init() {
+        vouchersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        idsByNumber = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, vouchersById, "debitVouchersById");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByNumber, "debitVoucherIdsByNumber");
+    }
+
+    /**
+     * Get a voucher by id, loading and caching it on a miss
+     * @param id The voucher id
+     * @param loader Loads the voucher from the database; exceptions are propagated and nothing is cached
+     * @return The voucher
+     */
+    public DebitVoucherDto getById(Long id, Function<Long, DebitVoucherDto> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        DebitVoucherDto voucher = vouchersById.get(id, loader);
+        idsByNumber.put(voucher.getVoucherNumber(), id);
+        return voucher;
+    }
+
+    /**
+     * Get a voucher by voucher number, loading and caching it on a miss
+     * @param voucherNumber The voucher number
+     * @param loader Loads the voucher from the database; exceptions are propagated and nothing is cached
+     * @return The voucher
+     */
+    public DebitVoucherDto getByNumber(String voucherNumber, Supplier<DebitVoucherDto> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Long id = idsByNumber.getIfPresent(voucherNumber);
+        if (id != null) {
+            DebitVoucherDto cached = vouchersById.getIfPresent(id);
+            if (cached != null && voucherNumber.equals(cached.getVoucherNumber())) {
+                return cached;
+            }
+        }
+        DebitVoucherDto voucher = loader.get();
+        put(voucher);
+        return voucher;
+    }
+
+    /**
+     * Cache a voucher that was just read or written
+     * @param voucher The voucher to cache
+     */
+    public void put(DebitVoucherDto voucher) {
+        if (!enabled || voucher.getId() == null) {
+            return;
+        }
+        vouchersById.put(voucher.getId(), voucher);
+        idsByNumber.put(voucher.getVoucherNumber(), voucher.getId());
+    }
+
+    /**
+     * Remove a voucher from both caches after it has been changed or deleted
+     * @param id The voucher id
+     */
+    public void evict(Long id) {
+        DebitVoucherDto removed = vouchersById.asMap().remove(id);
+        if (removed != null) {
+            idsByNumber.invalidate(removed.getVoucherNumber());
+        }
+    }
+
+    /**
+     * @return Hit/miss statistics for the id and voucher number caches
+     */
+    public List<VoucherCacheStats> getStats() {
+        return List.of(
+                toStats("debitVouchersById", vouchersById),
+                toStats("debitVoucherIdsByNumber", idsByNumber));
+    }
+
+    private static VoucherCacheStats toStats(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return VoucherCacheStats.builder()
+                .name(name)
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
@@ -3,44 +3,92 @@ package com.bracit.voucher_engine.service;
 import com.bracit.voucher_engine.config.RabbitMQConfig;
 import com.bracit.voucher_engine.dto.DebitVoucherDto;
 import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
 @Service
 public class DebitVoucherConsumer {
 
     @Autowired
     private DebitVoucherService debitVoucherService;
 
+    @Autowired
+    private VoucherWriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    private VoucherPipelineMetrics metrics;
+
     /**
-     * Consumes debit voucher messages from RabbitMQ and stores them in the database
+     * Consumes debit voucher messages from RabbitMQ and stores them in the database.
+     * Messages are acked manually once their voucher has committed. With write-behind enabled the
+     * listener only queues the voucher and returns, so the next deliveries (up to the prefetch)
+     * join the same group commit; the ack is sent when the group commits
      * @param message The debit voucher message received from RabbitMQ
+     * @param channel The channel the message was received on, used to ack it
+     * @param deliveryTag The delivery tag of the message on that channel
+     * @param publishedAt The publish time in epoch milliseconds set by the producer, if any
      */
-    @RabbitListener(queues = RabbitMQConfig.DEBIT_VOUCHER_QUEUE)
-    public void receiveDebitVoucher(DebitVoucherMessage message) {
-        System.out.println("Received debit voucher from RabbitMQ: " + message.getVoucherNumber());
-        
+    @RabbitListener(queues = RabbitMQConfig.DEBIT_VOUCHER_QUEUE, ackMode = "MANUAL")
+    public void receiveDebitVoucher(DebitVoucherMessage message,
+                                    Channel channel,
+                                    @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                                    @Header(name = RabbitMQConfig.HEADER_PUBLISHED_AT, required = false) Long publishedAt) {
+        log.debug("Received debit voucher from RabbitMQ: {}", message.getVoucherNumber());
+        metrics.recordSingleReceived();
+
+        // Convert message to DTO
+        DebitVoucherDto debitVoucherDto = DebitVoucherDto.builder()
+                .voucherNumber(message.getVoucherNumber())
+                .voucherDate(message.getVoucherDate())
+                .amount(message.getAmount())
+                .description(message.getDescription())
+                .createdBy(message.getCreatedBy())
+                .createdDate(message.getCreatedDate())
+                .status(message.getStatus())
+                .debitAccount(message.getDebitAccount())
+                .creditAccount(message.getCreditAccount())
+                .build();
+
+        CompletableFuture<DebitVoucherDto> saved;
         try {
-            // Convert message to DTO
-            DebitVoucherDto debitVoucherDto = DebitVoucherDto.builder()
-                    .voucherNumber(message.getVoucherNumber())
-                    .voucherDate(message.getVoucherDate())
-                    .amount(message.getAmount())
-                    .description(message.getDescription())
-                    .createdBy(message.getCreatedBy())
-                    .createdDate(message.getCreatedDate())
-                    .status(message.getStatus())
-                    .debitAccount(message.getDebitAccount())
-                    .creditAccount(message.getCreditAccount())
-                    .build();
-            
-            // Save to database using the service
-            DebitVoucherDto savedVoucher = debitVoucherService.createVoucher(debitVoucherDto);
-            System.out.println("Debit voucher saved to database: " + savedVoucher.getVoucherNumber());
+            // Group-committed with other messages when write-behind is enabled
+            saved = writeBehindBuffer.isEnabled()
+                    ? writeBehindBuffer.submit(debitVoucherDto)
+                    : CompletableFuture.completedFuture(debitVoucherService.createVoucher(debitVoucherDto));
         } catch (Exception e) {
-            System.err.println("Error processing debit voucher message: " + e.getMessage());
-            e.printStackTrace();
+            saved = CompletableFuture.failedFuture(e);
+        }
+
+        saved.whenComplete((savedVoucher, error) -> {
+            if (error == null) {
+                metrics.recordPersisted(VoucherPipelineMetrics.LISTENER_SINGLE, 1);
+                metrics.recordEndToEndLatency(VoucherPipelineMetrics.LISTENER_SINGLE, publishedAt);
+                log.debug("Debit voucher saved to database: {}", savedVoucher.getVoucherNumber());
+            } else {
+                metrics.recordDiscarded();
+                log.error("Error processing debit voucher message {}", message.getVoucherNumber(), error);
+            }
+            // Failed vouchers are acked as well: they are dropped, as before
+            ack(channel, deliveryTag, message.getVoucherNumber());
+        });
+    }
+
+    private void ack(Channel channel, long deliveryTag, String voucherNumber) {
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException | RuntimeException e) {
+            // The channel closed before the commit finished; the broker redelivers the message and
+            // the stored voucher number rejects the second copy
+            log.warn("Could not ack debit voucher {}: {}", voucherNumber, e.getMessage());
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,21 +1,25 @@
 package com.bracit.voucher_engine.service;
 
-import com.bracit.voucher_engine.config.RabbitMQConfig;
 import com.bracit.voucher_engine.dto.DebitVoucherDto;
 import com.bracit.voucher_engine.dto.DebitVoucherMessage;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+@Slf4j
 @Service
 public class DebitVoucherProducer {
 
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private ConfirmingVoucherPublisher confirmingPublisher;
 
     /**
-     * Sends a debit voucher message to RabbitMQ
+     * Sends a debit voucher message to RabbitMQ and waits for the broker to confirm it
      * @param debitVoucherDto The debit voucher to send
+     * @throws AmqpException if the broker did not confirm the message after retries
      */
     public void sendDebitVoucher(DebitVoucherDto debitVoucherDto) {
         // Convert DTO to message
@@ -32,12 +36,10 @@ public class DebitVoucherProducer {
                 .build();
 
         // Send message to RabbitMQ
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.DEBIT_VOUCHER_EXCHANGE,
-                RabbitMQConfig.DEBIT_VOUCHER_ROUTING_KEY,
-                message
-        );
+        if (confirmingPublisher.publish(List.of(message), false) == 0) {
+            throw new AmqpException("Debit voucher " + message.getVoucherNumber() + " was not confirmed by the broker");
+        }
         
-        System.out.println("Debit voucher sent to RabbitMQ: " + message.getVoucherNumber());
+        log.debug("Debit voucher sent to RabbitMQ: {}", message.getVoucherNumber());
     }
 } 
\ No newline at end of file
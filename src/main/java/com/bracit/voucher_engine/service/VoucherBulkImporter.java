@@ -0,0 +1,221 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.BulkIngestResult;
+import com.bracit.voucher_engine.dto.CreditVoucherMessage;
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.dto.FailedVoucher;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Imports vouchers of any type from a JSON array or NDJSON stream without materialising the upload.
+ * Rows are parsed one at a time with Jackson's streaming parser, validated, and written through
+ * the BisectingVoucherWriter in chunks of app.bulk-import.chunk-size, so a bad row fails only
+ * itself. While one chunk is being written the next one is parsed, so at most two chunks are held
+ * in memory however large the upload is. A result is reported for every row, in upload order.
+ */
+@Slf4j
+@Service
+public class VoucherBulkImporter {
+
+    private static final int MAX_DESCRIPTION_LENGTH = 500;
+
+    @Autowired
+    private BisectingVoucherWriter bisectingWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("boundedVirtualThreadExecutor")
+    private ExecutorService boundedVirtualThreadExecutor;
+
+    @Value("${app.bulk-import.chunk-size:1000}")
+    private int chunkSize;
+
+    // A row to write, or one already rejected (message null) that is reported with its chunk
+    private record Row(long index, VoucherMessage message, BulkIngestResult rejected) {
+    }
+
+    /**
+     * Import debit vouchers from a stream
+     * @see #importVouchers(VoucherType, InputStream, Consumer)
+     */
+    public long importVouchers(InputStream input, Consumer<BulkIngestResult> results) throws IOException {
+        return importVouchers(VoucherType.DEBIT, input, results);
+    }
+
+    /**
+     * Import vouchers from a stream
+     * @param type The type of the vouchers
+     * @param input A JSON array of vouchers, or vouchers as whitespace-separated JSON objects (NDJSON)
+     * @param results Receives the outcome of every row, in upload order
+     * @return The number of rows read
+     * @throws IOException if the stream cannot be read. Malformed JSON is not thrown: it stops the
+     * import and is reported as an INVALID row after the rows before it
+     */
+    public long importVouchers(VoucherType type, InputStream input, Consumer<BulkIngestResult> results) throws IOException {
+        Class<? extends VoucherMessage> messageType = switch (type) {
+            case DEBIT -> DebitVoucherMessage.class;
+            case CREDIT -> CreditVoucherMessage.class;
+        };
+        long index = 0;
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        CompletableFuture<List<BulkIngestResult>> previous = CompletableFuture.completedFuture(List.of());
+
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            JsonToken token = parser.nextToken();
+            // A top-level array is unwrapped; otherwise the stream is a sequence of root-level objects
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                // Read each row as a tree first, so a row that does not bind only fails that row
+                JsonNode node = parser.readValueAsTree();
+                chunk.add(toRow(index++, node, messageType));
+
+                if (chunk.size() >= chunkSize) {
+                    previous = writeAfter(previous, type, chunk, results);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            // The parser cannot resynchronise after malformed JSON, so the import stops at this row
+            chunk.add(rejected(index++, null, "Malformed JSON: " + e.getOriginalMessage()));
+        }
+
+        if (!chunk.isEmpty()) {
+            previous = writeAfter(previous, type, chunk, results);
+        }
+        previous.join().forEach(results);
+
+        log.info("Bulk import of {} {} vouchers finished", index, type);
+        return index;
+    }
+
+    /**
+     * Wait for the previous chunk, report its results and start writing the next one
+     */
+    private CompletableFuture<List<BulkIngestResult>> writeAfter(CompletableFuture<List<BulkIngestResult>> previous,
+                                                                 VoucherType type, List<Row> chunk,
+                                                                 Consumer<BulkIngestResult> results) {
+        previous.join().forEach(results);
+        return CompletableFuture.supplyAsync(() -> writeChunk(type, chunk), boundedVirtualThreadExecutor);
+    }
+
+    /**
+     * Write the valid rows of a chunk in one bulk write, bisecting it if some rows fail
+     * @return Results for every row of the chunk, in order
+     */
+    private List<BulkIngestResult> writeChunk(VoucherType type, List<Row> chunk) {
+        List<VoucherMessage> messages = chunk.stream()
+                .map(Row::message)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<VoucherMessage, String> failed = new IdentityHashMap<>();
+        if (!messages.isEmpty()) {
+            try {
+                for (FailedVoucher failure : bisectingWriter.write(type, messages)) {
+                    failed.put(failure.getMessage(), failure.getError());
+                }
+            } catch (RuntimeException e) {
+                // The database stayed unavailable; none of the chunk is known to be stored
+                log.warn("Bulk import chunk of {} vouchers failed: {}", messages.size(), e.getMessage());
+                messages.forEach(message -> failed.put(message, String.valueOf(e.getMessage())));
+            }
+        }
+
+        List<BulkIngestResult> results = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.rejected() != null) {
+                results.add(row.rejected());
+            } else if (failed.containsKey(row.message())) {
+                results.add(new BulkIngestResult(row.index(), row.message().getVoucherNumber(),
+                        BulkIngestResult.Status.FAILED, failed.get(row.message())));
+            } else {
+                results.add(new BulkIngestResult(row.index(), row.message().getVoucherNumber(),
+                        BulkIngestResult.Status.STORED, null));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Bind and validate one row. Invalid rows are not written, only reported
+     * @return The row, with either the message to write or the reason it was rejected
+     */
+    private Row toRow(long index, JsonNode node, Class<? extends VoucherMessage> messageType) {
+        String voucherNumber = node.path("voucherNumber").asText(null);
+        VoucherMessage message;
+        try {
+            message = objectMapper.treeToValue(node, messageType);
+        } catch (JsonProcessingException e) {
+            return rejected(index, voucherNumber, e.getOriginalMessage());
+        }
+
+        String error = validate(message);
+        if (error != null) {
+            return rejected(index, voucherNumber, error);
+        }
+        return new Row(index, message, null);
+    }
+
+    private static Row rejected(long index, String voucherNumber, String error) {
+        return new Row(index, null, new BulkIngestResult(index, voucherNumber, BulkIngestResult.Status.INVALID, error));
+    }
+
+    /**
+     * @return Why the voucher cannot be stored, or null if it is valid
+     */
+    private static String validate(VoucherMessage message) {
+        if (isBlank(message.getVoucherNumber())) {
+            return "voucherNumber is required";
+        }
+        if (message.getVoucherDate() == null) {
+            return "voucherDate is required";
+        }
+        if (message.getAmount() == null) {
+            return "amount is required";
+        }
+        if (isBlank(message.getCreatedBy())) {
+            return "createdBy is required";
+        }
+        if (isBlank(message.getDebitAccount()) || isBlank(message.getCreditAccount())) {
+            return "debitAccount and creditAccount are required";
+        }
+        if (message.getStatus() != null && !message.getStatus().isInitial()) {
+            return "status must be DRAFT or PENDING_APPROVAL, not " + message.getStatus();
+        }
+        if (message.getDescription() != null && message.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            return "description is longer than " + MAX_DESCRIPTION_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
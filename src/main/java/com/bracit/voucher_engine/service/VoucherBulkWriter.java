@@ -0,0 +1,31 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.BulkWriteResult;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.model.VoucherType;
+
+import java.util.List;
+
+/**
+ * Writes batches of voucher messages straight into the table of one voucher type.
+ * Implementations are selected by BulkWriterConfig based on the database in use, one writer per type.
+ */
+public interface VoucherBulkWriter {
+
+    /**
+     * Persist a batch of vouchers in a single transaction
+     * @param messages The vouchers to write
+     * @return The number of rows written and the time it took
+     */
+    BulkWriteResult write(List<? extends VoucherMessage> messages);
+
+    /**
+     * @return The type of voucher this writer stores
+     */
+    VoucherType getType();
+
+    /**
+     * @return Short name of the write strategy, used in logs and statistics
+     */
+    String getName();
+}
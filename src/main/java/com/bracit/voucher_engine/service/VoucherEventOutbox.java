@@ -0,0 +1,62 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.model.VoucherEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transactional outbox for voucher change events.
+ * Voucher changes insert their events into voucher_events in the same transaction as the change
+ * itself, so an event exists if and only if its change committed. VoucherEventRelay publishes and
+ * removes them.
+ */
+@Service
+public class VoucherEventOutbox {
+
+    private static final String INSERT_SQL = "INSERT INTO voucher_events (event_type, voucher_type, voucher_id, "
+            + "voucher_number, status, version, amount, debit_account, credit_account, actor, occurred_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.voucher-events.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Store an event in the transaction of the change it describes
+     * @param event The event; id and occurredAt are assigned here
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(VoucherEvent event) {
+        recordAll(List.of(event));
+    }
+
+    /**
+     * Store events with one JDBC batch, in the transaction of the changes they describe
+     * @param events The events; ids and occurredAt are assigned here
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<VoucherEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = new ArrayList<>(events.size());
+        for (VoucherEvent event : events) {
+            args.add(new Object[]{event.getEventType().name(), event.getVoucherType().name(), event.getVoucherId(),
+                    event.getVoucherNumber(), event.getStatus().name(), event.getVersion(), event.getAmount(),
+                    event.getDebitAccount(), event.getCreditAccount(), event.getActor(), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+}
@@ -0,0 +1,91 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.VoucherEventMessage;
+import com.bracit.voucher_engine.model.VoucherEvent;
+import com.bracit.voucher_engine.repository.VoucherEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relays voucher events from the outbox to the voucher event exchange.
+ * Each run claims the oldest events with SELECT ... FOR UPDATE SKIP LOCKED, publishes them with
+ * pipelined publisher confirms and deletes the confirmed ones in the same transaction, batch after
+ * batch until the outbox is drained. Several instances can relay at once, each claiming different events.
+ * Delivery is at least once: if the relay dies between the broker's confirm and its commit, the
+ * events are published again after the restart. Unconfirmed events stay in the table and are
+ * retried on the next run, so events of different vouchers may arrive out of order; for one
+ * voucher the version orders them.
+ */
+@Slf4j
+@Service
+public class VoucherEventRelay {
+
+    @Autowired
+    private VoucherEventRepository voucherEventRepository;
+
+    @Autowired
+    private ConfirmingVoucherPublisher publisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.voucher-events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.voucher-events.relay-batch-size:500}")
+    private int relayBatchSize;
+
+    /**
+     * Publish stored events, batch after batch, until the outbox is drained or a publish is not confirmed
+     */
+    @Scheduled(fixedDelayString = "${app.voucher-events.relay-interval-ms:200}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> relayBatch()))) {
+                // Full batch relayed, more may be waiting
+            }
+        } catch (RuntimeException e) {
+            log.warn("Relaying voucher events failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claim, publish and delete one batch of events. The claimed rows stay locked until the
+     * deletes commit, so no other relay publishes them meanwhile
+     * @return true if the batch was full and fully confirmed
+     */
+    private boolean relayBatch() {
+        List<VoucherEvent> events = voucherEventRepository.findAllByOrderByIdAsc(Limit.of(relayBatchSize));
+        if (events.isEmpty()) {
+            return false;
+        }
+
+        boolean[] confirmed = publisher.publishEvents(events.stream().map(VoucherEventMessage::of).toList());
+        List<Long> published = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            if (confirmed[i]) {
+                published.add(events.get(i).getId());
+            }
+        }
+        voucherEventRepository.deleteAllByIdInBatch(published);
+
+        if (published.size() < events.size()) {
+            log.warn("{} of {} voucher events were not confirmed, retrying on the next run",
+                    events.size() - published.size(), events.size());
+            return false;
+        }
+        log.debug("Relayed {} voucher events", events.size());
+        return events.size() == relayBatchSize;
+    }
+}
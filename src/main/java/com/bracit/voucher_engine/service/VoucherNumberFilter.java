@@ -0,0 +1,219 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.dto.VoucherSummary;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.repository.VoucherRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Detects voucher numbers that are already stored, so redelivered or re-uploaded vouchers can be
+ * dropped before a bulk write instead of failing it.
+ * A Bloom filter over all stored voucher numbers answers "definitely new" without touching the
+ * database; only numbers the filter reports as possibly present are checked, with one IN query
+ * per batch. The filter is rebuilt from the table at startup (keyset scan in the background) and
+ * kept current by the bulk writer. Until the rebuild finishes every number counts as possibly
+ * present, so nothing is skipped without a database check. The filter only ever saves queries:
+ * a number it has missed is still caught by the unique constraint.
+ * Voucher numbers are unique per table, so each voucher type has its own filter (see BulkWriterConfig).
+ */
+@Slf4j
+public class VoucherNumberFilter {
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final VoucherRepository<?> voucherRepository;
+    private final VoucherType type;
+    private final VoucherPipelineMetrics metrics;
+    private final ExecutorService virtualThreadExecutor;
+    private final long expectedVouchers;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    /**
+     * @param voucherRepository Repository of the voucher type, used to load and check stored numbers
+     * @param type The voucher type
+     * @param metrics Records database lookups
+     * @param virtualThreadExecutor Runs the rebuild in the background
+     * @param expectedVouchers Number of voucher numbers the filter is sized for
+     * @param falsePositiveRate Target false positive rate at that size
+     */
+    public VoucherNumberFilter(VoucherRepository<?> voucherRepository, VoucherType type, VoucherPipelineMetrics metrics,
+                               ExecutorService virtualThreadExecutor, long expectedVouchers, double falsePositiveRate) {
+        this.voucherRepository = voucherRepository;
+        this.type = type;
+        this.metrics = metrics;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+        this.expectedVouchers = expectedVouchers;
+
+        // Optimal Bloom filter size and hash count for n entries at false positive rate p
+        double ln2 = Math.log(2);
+        bitCount = Math.max(64, (long) Math.ceil(-expectedVouchers * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedVouchers * ln2));
+        bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        log.info("{} voucher number filter: {} KiB, {} hashes for {} vouchers at {} false positives",
+                type, bits.length() / 128, hashCount, expectedVouchers, falsePositiveRate);
+    }
+
+    /**
+     * Load the voucher numbers already stored. Runs in the background so startup is not delayed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        virtualThreadExecutor.execute(() -> {
+            long start = System.nanoTime();
+            long loaded = 0;
+            try {
+                long afterId = 0;
+                List<VoucherSummary> page;
+                do {
+                    page = voucherRepository.findSummariesByIdGreaterThanOrderByIdAsc(afterId, Limit.of(REBUILD_PAGE_SIZE));
+                    for (VoucherSummary voucher : page) {
+                        put(voucher.voucherNumber());
+                    }
+                    loaded += page.size();
+                    if (!page.isEmpty()) {
+                        afterId = page.get(page.size() - 1).id();
+                    }
+                } while (page.size() == REBUILD_PAGE_SIZE);
+                ready = true;
+                if (loaded > expectedVouchers) {
+                    log.warn("{} voucher number filter holds {} numbers but is sized for {}; raise "
+                            + "app.dedupe.expected-vouchers to keep the false positive rate", type, loaded, expectedVouchers);
+                }
+                log.info("{} voucher number filter loaded {} voucher numbers in {} ms",
+                        type, loaded, (System.nanoTime() - start) / 1_000_000);
+            } catch (Exception e) {
+                log.warn("{} voucher number filter rebuild failed after {} vouchers, all numbers will be checked "
+                        + "against the database: {}", type, loaded, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Drop vouchers that repeat a voucher number earlier in the batch or already stored
+     * @param messages The vouchers to write
+     * @return The vouchers with new voucher numbers, in their original order
+     */
+    public <M extends VoucherMessage> List<M> removeDuplicates(List<M> messages) {
+        // Keep the first occurrence of each number within the batch. Vouchers without a number
+        // are passed through for the writer to reject
+        Set<String> seen = new HashSet<>();
+        List<M> unique = new ArrayList<>(messages.size());
+        List<String> candidates = new ArrayList<>();
+        for (M message : messages) {
+            String voucherNumber = message.getVoucherNumber();
+            if (voucherNumber == null) {
+                unique.add(message);
+            } else if (seen.add(voucherNumber)) {
+                unique.add(message);
+                if (mightContain(voucherNumber)) {
+                    candidates.add(voucherNumber);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return unique;
+        }
+
+        Set<String> existing = findExisting(candidates);
+        metrics.recordDedupeLookup(candidates.size(), existing.size());
+        if (existing.isEmpty()) {
+            return unique;
+        }
+        return unique.stream()
+                .filter(message -> !existing.contains(message.getVoucherNumber()))
+                .toList();
+    }
+
+    /**
+     * Drop vouchers whose number is stored, checking all of them against the database.
+     * Used after a write lost a race with another writer, when the filter cannot know yet
+     * @param messages Vouchers with distinct voucher numbers
+     * @return The vouchers whose numbers are not stored
+     */
+    public <M extends VoucherMessage> List<M> removeExisting(List<M> messages) {
+        Set<String> existing = findExisting(messages.stream()
+                .map(VoucherMessage::getVoucherNumber)
+                .filter(Objects::nonNull)
+                .toList());
+        metrics.recordDedupeLookup(messages.size(), existing.size());
+        return messages.stream()
+                .filter(message -> !existing.contains(message.getVoucherNumber()))
+                .toList();
+    }
+
+    /**
+     * Record voucher numbers that have been stored
+     * @param messages The vouchers written
+     */
+    public void addAll(List<? extends VoucherMessage> messages) {
+        for (VoucherMessage message : messages) {
+            if (message.getVoucherNumber() != null) {
+                put(message.getVoucherNumber());
+            }
+        }
+    }
+
+    private Set<String> findExisting(List<String> voucherNumbers) {
+        if (voucherNumbers.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(voucherRepository.findExistingVoucherNumbers(voucherNumbers));
+    }
+
+    private boolean mightContain(String voucherNumber) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(voucherNumber);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(String voucherNumber) {
+        long hash = hash(voucherNumber);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            long mask = 1L << bit;
+            bits.accumulateAndGet((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    /**
+     * FNV-1a over the characters followed by the SplitMix64 finaliser; the two halves
+     * seed the double hashing of the Bloom filter
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+}
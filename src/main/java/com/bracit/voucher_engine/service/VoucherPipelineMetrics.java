@@ -0,0 +1,374 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.config.BoundedVirtualThreadExecutor;
+import com.bracit.voucher_engine.dto.BulkWriteResult;
+import com.bracit.voucher_engine.model.VoucherType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the voucher ingest pipeline: publishing, consumption, database writes
+ * and the executors and buffers in between. Exposed through the actuator metrics and
+ * prometheus endpoints.
+ */
+@Service
+public class VoucherPipelineMetrics {
+
+    public static final String LISTENER_BULK = "bulk";
+    public static final String LISTENER_CREDIT_BULK = "credit-bulk";
+    public static final String LISTENER_SINGLE = "single";
+
+    public static final String MODE_SINGLE = "single";
+    public static final String MODE_BATCH = "batch";
+    // Voucher change events relayed from the outbox
+    public static final String MODE_EVENT = "event";
+
+    public static final String FAILURE_DEAD_LETTERED = "dead-lettered";
+    public static final String FAILURE_REQUEUED = "requeued";
+    public static final String FAILURE_DISCARDED = "discarded";
+
+    private final MeterRegistry registry;
+
+    private final Counter fallbacks;
+    private final DistributionSummary batchSize;
+
+    public VoucherPipelineMetrics(MeterRegistry registry,
+                                  @Qualifier("boundedVirtualThreadExecutor") BoundedVirtualThreadExecutor dbWriteExecutor,
+                                  VoucherWriteBehindBuffer writeBehindBuffer) {
+        this.registry = registry;
+
+        this.fallbacks = Counter.builder("voucher.consume.fallback")
+                .description("Bulk writes that fell back to isolating failing vouchers")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("voucher.consume.batch.size")
+                .description("Number of messages per listener batch")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry);
+
+        Gauge.builder("voucher.db.executor.permits.active", dbWriteExecutor, BoundedVirtualThreadExecutor::getPermitsInUse)
+                .description("DB write permits currently in use")
+                .register(registry);
+        Gauge.builder("voucher.db.executor.permits.max", dbWriteExecutor, BoundedVirtualThreadExecutor::getMaxConcurrency)
+                .description("Maximum concurrent DB writes")
+                .register(registry);
+        Gauge.builder("voucher.db.executor.waiting", dbWriteExecutor, BoundedVirtualThreadExecutor::getWaitingSubmitters)
+                .description("Submitters blocked waiting for a DB write permit")
+                .register(registry);
+        FunctionCounter.builder("voucher.db.executor.wait", dbWriteExecutor,
+                        executor -> executor.getTotalWaitNanos() / 1_000_000_000.0)
+                .description("Total time spent waiting for DB write permits")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("voucher.write.behind.pending", writeBehindBuffer, VoucherWriteBehindBuffer::getPendingCount)
+                .description("Vouchers waiting in the write-behind buffer")
+                .register(registry);
+    }
+
+    /**
+     * Record vouchers published to RabbitMQ and confirmed by the broker
+     * @param mode MODE_SINGLE, MODE_BATCH or MODE_EVENT
+     * @param count Number of vouchers published
+     */
+    public void recordPublished(String mode, long count) {
+        Counter.builder("voucher.published")
+                .description("Vouchers published to RabbitMQ and confirmed by the broker")
+                .tag("mode", mode)
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Record vouchers that could not be published or were never confirmed
+     * @param mode MODE_SINGLE, MODE_BATCH or MODE_EVENT
+     * @param count Number of vouchers that failed
+     */
+    public void recordPublishFailed(String mode, long count) {
+        Counter.builder("voucher.publish.failed")
+                .description("Vouchers that could not be published to RabbitMQ")
+                .tag("mode", mode)
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Record vouchers published again because their previous publish was not confirmed
+     * @param mode MODE_SINGLE, MODE_BATCH or MODE_EVENT
+     * @param count Number of vouchers retried
+     */
+    public void recordPublishRetried(String mode, long count) {
+        Counter.builder("voucher.publish.retried")
+                .description("Vouchers republished after a nack, return, timeout or send error")
+                .tag("mode", mode)
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Record a publish that was not confirmed as delivered
+     * @param reason nack, returned, timeout or error
+     */
+    public void recordPublishRejected(String reason) {
+        Counter.builder("voucher.publish.unconfirmed")
+                .description("Publishes (messages or batches) not confirmed as delivered")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Record a database check for voucher numbers the duplicate filter could not rule out
+     * @param checked Number of voucher numbers looked up
+     * @param found Number of them already stored
+     */
+    public void recordDedupeLookup(int checked, int found) {
+        Counter.builder("voucher.dedupe.checked")
+                .description("Voucher numbers checked against the database before a bulk write")
+                .register(registry)
+                .increment(checked);
+        Counter.builder("voucher.dedupe.false.positives")
+                .description("Checked voucher numbers that turned out not to be stored")
+                .register(registry)
+                .increment(checked - found);
+    }
+
+    /**
+     * @param type A voucher type
+     * @return The listener tag of the bulk listener for that type
+     */
+    public static String bulkListener(VoucherType type) {
+        return switch (type) {
+            case DEBIT -> LISTENER_BULK;
+            case CREDIT -> LISTENER_CREDIT_BULK;
+        };
+    }
+
+    /**
+     * Record a batch received by a bulk listener
+     * @param listener LISTENER_BULK or LISTENER_CREDIT_BULK
+     * @param size Number of messages in the batch
+     */
+    public void recordBulkBatchReceived(String listener, int size) {
+        consumedCounter(listener).increment(size);
+        batchSize.record(size);
+    }
+
+    /**
+     * Record a message received by the single-message listener
+     */
+    public void recordSingleReceived() {
+        consumedCounter(LISTENER_SINGLE).increment();
+    }
+
+    /**
+     * Record a database write made by a bulk writer
+     * @param result The outcome of the write
+     */
+    public void recordDbWrite(BulkWriteResult result) {
+        String listener = bulkListener(result.getType());
+        dbWriteTimer(result.getWriter(), "success").record(result.getElapsedNanos(), TimeUnit.NANOSECONDS);
+        persistedCounter(listener).increment(result.getWritten());
+        duplicatesCounter(listener).increment(result.getSkipped());
+    }
+
+    /**
+     * Record a database write that failed
+     * @param writer Name of the write strategy
+     * @param elapsedNanos Time spent before the failure
+     */
+    public void recordDbWriteFailed(String writer, long elapsedNanos) {
+        dbWriteTimer(writer, "failure").record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record vouchers written one at a time (single listener or failure isolation)
+     * @param listener LISTENER_BULK or LISTENER_SINGLE
+     * @param count Number of vouchers written
+     */
+    public void recordPersisted(String listener, long count) {
+        persistedCounter(listener).increment(count);
+    }
+
+    /**
+     * Record a bulk write that fell back to isolating the failing vouchers
+     */
+    public void recordFallback() {
+        fallbacks.increment();
+    }
+
+    /**
+     * Record vouchers routed to the dead-letter queue
+     * @param listener LISTENER_BULK or LISTENER_CREDIT_BULK
+     * @param count Number of vouchers
+     */
+    public void recordDeadLettered(String listener, long count) {
+        failureCounter(FAILURE_DEAD_LETTERED, listener).increment(count);
+    }
+
+    /**
+     * Record the time from publishing a voucher to its commit. For batched publishing the
+     * timestamp of the batch (its first message) is used, so this is an upper bound
+     * @param listener LISTENER_BULK, LISTENER_CREDIT_BULK or LISTENER_SINGLE
+     * @param publishedAt Publish time in epoch milliseconds from the x-published-at-ms header; ignored if null
+     */
+    public void recordEndToEndLatency(String listener, Number publishedAt) {
+        if (publishedAt == null) {
+            return;
+        }
+        Timer.builder("voucher.e2e.latency")
+                .description("Time from publishing a voucher to its database commit")
+                .tag("listener", listener)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry)
+                .record(Math.max(0, System.currentTimeMillis() - publishedAt.longValue()), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record a message from the single-message listener that could not be saved and was dropped
+     */
+    public void recordDiscarded() {
+        failureCounter(FAILURE_DISCARDED, LISTENER_SINGLE).increment();
+    }
+
+    /**
+     * Record vouchers requeued because the database was unavailable
+     * @param listener LISTENER_BULK or LISTENER_CREDIT_BULK
+     * @param count Number of vouchers
+     */
+    public void recordRequeued(String listener, long count) {
+        failureCounter(FAILURE_REQUEUED, listener).increment(count);
+    }
+
+    /**
+     * Record a message body compressed or decompressed
+     * @param algorithm Compression algorithm (content-encoding)
+     * @param direction compress or decompress
+     * @param uncompressedBytes Size of the plain body
+     * @param compressedBytes Size of the compressed body
+     * @param elapsedNanos Time spent (CPU-bound, so close to the CPU cost)
+     */
+    public void recordCompression(String algorithm, String direction, int uncompressedBytes,
+                                  int compressedBytes, long elapsedNanos) {
+        Timer.builder("voucher.compression.time")
+                .description("Time spent compressing or decompressing message bodies")
+                .tag("algorithm", algorithm)
+                .tag("direction", direction)
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("voucher.compression.uncompressed")
+                .description("Message bytes before compression")
+                .baseUnit("bytes")
+                .tag("algorithm", algorithm)
+                .tag("direction", direction)
+                .register(registry)
+                .increment(uncompressedBytes);
+        Counter.builder("voucher.compression.compressed")
+                .description("Message bytes after compression")
+                .baseUnit("bytes")
+                .tag("algorithm", algorithm)
+                .tag("direction", direction)
+                .register(registry)
+                .increment(compressedBytes);
+        if (compressedBytes > 0) {
+            DistributionSummary.builder("voucher.compression.ratio")
+                    .description("Uncompressed size divided by compressed size, per message")
+                    .tag("algorithm", algorithm)
+                    .tag("direction", direction)
+                    .register(registry)
+                    .record((double) uncompressedBytes / compressedBytes);
+        }
+    }
+
+    /**
+     * Record a message published uncompressed because it was below the size threshold
+     * @param algorithm Configured compression algorithm
+     */
+    public void recordCompressionSkipped(String algorithm) {
+        Counter.builder("voucher.compression.skipped")
+                .description("Messages below the compression threshold")
+                .tag("algorithm", algorithm)
+                .register(registry)
+                .increment();
+    }
+
+    public double getBulkConsumedCount() {
+        return getConsumedCount(LISTENER_BULK);
+    }
+
+    public double getPersistedCount() {
+        return getPersistedCount(LISTENER_BULK);
+    }
+
+    public double getDuplicateCount() {
+        return getDuplicateCount(LISTENER_BULK);
+    }
+
+    public double getDeadLetteredCount() {
+        return getDeadLetteredCount(LISTENER_BULK);
+    }
+
+    public double getConsumedCount(String listener) {
+        return consumedCounter(listener).count();
+    }
+
+    public double getPersistedCount(String listener) {
+        return persistedCounter(listener).count();
+    }
+
+    public double getDuplicateCount(String listener) {
+        return duplicatesCounter(listener).count();
+    }
+
+    public double getDeadLetteredCount(String listener) {
+        return failureCounter(FAILURE_DEAD_LETTERED, listener).count();
+    }
+
+    public double getFallbackCount() {
+        return fallbacks.count();
+    }
+
+    private Counter consumedCounter(String listener) {
+        return Counter.builder("voucher.consumed")
+                .description("Voucher messages received from RabbitMQ")
+                .tag("listener", listener)
+                .register(registry);
+    }
+
+    private Counter persistedCounter(String listener) {
+        return Counter.builder("voucher.persisted")
+                .description("Vouchers written to the database by the consumers")
+                .tag("listener", listener)
+                .register(registry);
+    }
+
+    private Counter duplicatesCounter(String listener) {
+        return Counter.builder("voucher.duplicates.skipped")
+                .description("Vouchers skipped because their voucher number already existed")
+                .tag("listener", listener)
+                .register(registry);
+    }
+
+    private Counter failureCounter(String reason, String listener) {
+        return Counter.builder("voucher.consume.failed")
+                .description("Voucher messages that could not be persisted")
+                .tag("reason", reason)
+                .tag("listener", listener)
+                .register(registry);
+    }
+
+    private Timer dbWriteTimer(String writer, String outcome) {
+        return Timer.builder("voucher.db.write")
+                .description("Time to write and commit a batch of vouchers")
+                .tag("writer", writer)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.BulkDecisionResult;
+import com.bracit.voucher_engine.dto.CursorPage;
+import com.bracit.voucher_engine.dto.VoucherDto;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.dto.VoucherSummary;
+import com.bracit.voucher_engine.dto.VoucherVersion;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Operations shared by the services of all voucher types
+ * @param <D> The voucher DTO
+ */
+public interface VoucherService<D extends VoucherDto> {
+    VoucherType getVoucherType();
+    D createVoucher(D voucherDto);
+    List<D> createVouchersBulk(List<D> voucherDtos);
+    int saveMessages(List<? extends VoucherMessage> messages);
+    D getVoucherById(Long id);
+    D getVoucherByNumber(String voucherNumber);
+    // Highest stored voucher number starting with prefix, in string order
+    Optional<String> getHighestVoucherNumber(String prefix);
+    List<D> getAllVouchers();
+    List<D> getVouchersByStatus(VoucherStatus status);
+    List<D> getVouchersByDateRange(LocalDate startDate, LocalDate endDate);
+    CursorPage<VoucherSummary> getVoucherSummariesByStatus(VoucherStatus status, String cursor, int size);
+    CursorPage<VoucherSummary> getVoucherSummariesByCreatedBy(String createdBy, String cursor, int size);
+    D updateVoucher(Long id, D voucherDto);
+    D approveVoucher(Long id, String approvedBy);
+    D rejectVoucher(Long id, String rejectedBy);
+    // Status change checked against the VoucherStatus transition table; expectedVersion may be null
+    D transitionVoucher(Long id, VoucherStatus target, String actor, Long expectedVersion);
+    // Set-based decisions on PENDING_APPROVAL vouchers, committed in chunks
+    BulkDecisionResult approveVouchers(List<VoucherVersion> vouchers, String approvedBy);
+    BulkDecisionResult rejectVouchers(List<VoucherVersion> vouchers, String rejectedBy);
+    BulkDecisionResult approveVouchersByDateRange(LocalDate startDate, LocalDate endDate, String approvedBy);
+    BulkDecisionResult rejectVouchersByDateRange(LocalDate startDate, LocalDate endDate, String rejectedBy);
+    void deleteVoucher(Long id);
+}
@@ -0,0 +1,179 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.DebitVoucherDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in write-behind pipeline for individually created debit vouchers.
+ * Vouchers are placed in a bounded buffer and a small number of flusher threads commit them
+ * in groups, either when max-batch-size vouchers are waiting or when the oldest has waited
+ * max-linger-ms. Each caller gets a future that completes only after its voucher is committed,
+ * so acknowledgements stay durable while thousands of tiny transactions become a few large ones.
+ */
+@Slf4j
+@Service
+public class VoucherWriteBehindBuffer {
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    @Autowired
+    private DebitVoucherService debitVoucherService;
+
+    @Value("${app.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.write-behind.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${app.write-behind.max-linger-ms:5}")
+    private long maxLingerMs;
+
+    @Value("${app.write-behind.flusher-count:2}")
+    private int flusherCount;
+
+    private BlockingQueue<PendingVoucher> buffer;
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean running;
+
+    private record PendingVoucher(DebitVoucherDto voucher, CompletableFuture<DebitVoucherDto> future) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        buffer = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        for (int i = 0; i < flusherCount; i++) {
+            flushers.add(Thread.ofVirtual().name("write-behind-flusher-" + i).start(this::runFlusher));
+        }
+        log.info("Write-behind voucher buffer started (capacity {}, batch {}, linger {} ms)",
+                capacity, maxBatchSize, maxLingerMs);
+    }
+
+    /**
+     * Stop accepting new work and wait for the flushers to commit everything already buffered
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread flusher : flushers) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if write-behind is enabled and accepting vouchers
+     */
+    public boolean isEnabled() {
+        return enabled && running;
+    }
+
+    /**
+     * Queue a voucher for creation. Blocks while the buffer is full.
+     * @param voucherDto The voucher to create (same semantics as DebitVoucherService.createVoucher)
+     * @return A future completed with the saved voucher once its group has been committed
+     */
+    public CompletableFuture<DebitVoucherDto> submit(DebitVoucherDto voucherDto) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Write-behind buffer is not enabled");
+        }
+        PendingVoucher pending = new PendingVoucher(voucherDto, new CompletableFuture<>());
+        try {
+            buffer.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future().completeExceptionally(e);
+        }
+        return pending.future();
+    }
+
+    /**
+     * @return Number of vouchers waiting to be committed
+     */
+    public int getPendingCount() {
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    private void runFlusher() {
+        List<PendingVoucher> group = new ArrayList<>(maxBatchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                PendingVoucher first = buffer.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+
+                // Linger briefly so concurrent submitters can join this group
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+                while (group.size() < maxBatchSize) {
+                    buffer.drainTo(group, maxBatchSize - group.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (group.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingVoucher next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+
+                flush(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Commit a group in one transaction. If the group fails, retry its vouchers one by one
+     * so a single bad voucher only fails its own caller.
+     */
+    private void flush(List<PendingVoucher> group) {
+        try {
+            List<DebitVoucherDto> saved = debitVoucherService.createVoucherGroup(
+                    group.stream().map(PendingVoucher::voucher).toList());
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).future().complete(saved.get(i));
+            }
+        } catch (Exception groupException) {
+            if (group.size() == 1) {
+                group.get(0).future().completeExceptionally(groupException);
+                return;
+            }
+            for (PendingVoucher pending : group) {
+                try {
+                    pending.future().complete(debitVoucherService.createVoucher(pending.voucher()));
+                } catch (Exception e) {
+                    pending.future().completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
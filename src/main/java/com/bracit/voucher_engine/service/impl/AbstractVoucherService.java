@@ -0,0 +1,646 @@
+package com.bracit.voucher_engine.service.impl;
+
+import com.bracit.voucher_engine.dto.BulkDecisionResult;
+import com.bracit.voucher_engine.dto.CursorPage;
+import com.bracit.voucher_engine.dto.VoucherDto;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.dto.VoucherDecisionRow;
+import com.bracit.voucher_engine.dto.VoucherSummary;
+import com.bracit.voucher_engine.dto.VoucherVersion;
+import com.bracit.voucher_engine.exception.InvalidStatusTransitionException;
+import com.bracit.voucher_engine.exception.ResourceNotFoundException;
+import com.bracit.voucher_engine.exception.VoucherConflictException;
+import com.bracit.voucher_engine.model.Voucher;
+import com.bracit.voucher_engine.model.VoucherEvent;
+import com.bracit.voucher_engine.model.VoucherEventType;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.repository.VoucherRepository;
+import com.bracit.voucher_engine.service.AccountBalanceService;
+import com.bracit.voucher_engine.service.VoucherEventOutbox;
+import com.bracit.voucher_engine.service.VoucherService;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batching, mapping and persistence shared by the services of all voucher types. Subclasses
+ * only supply the entity and DTO mapping of their type and may hook into changes (e.g. to evict a cache)
+ * @param <T> The voucher entity
+ * @param <D> The voucher DTO
+ */
+public abstract class AbstractVoucherService<T extends Voucher, D extends VoucherDto> implements VoucherService<D> {
+
+    protected static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int BULK_BATCH_SIZE = 100;
+
+    private final VoucherRepository<T> repository;
+    private final VoucherType voucherType;
+    private final String displayName;
+
+    // Compare-and-set statements on id, version and status
+    private final String transitionSql;
+    private final String decideSql;
+    private final String deleteSql;
+
+    @Autowired
+    @Qualifier("boundedVirtualThreadExecutor")
+    private ExecutorService boundedVirtualThreadExecutor;
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+
+    @Autowired
+    private VoucherEventOutbox voucherEventOutbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.bulk-decision.chunk-size:1000}")
+    private int decisionChunkSize;
+
+    @Value("${app.voucher-list.max-results:1000}")
+    private int listMaxResults;
+
+    /**
+     * @param repository Repository of the voucher entity
+     * @param voucherType The type of voucher handled
+     * @param displayName Name of the voucher type used in error messages, e.g. "Debit Voucher"
+     */
+    protected AbstractVoucherService(VoucherRepository<T> repository, VoucherType voucherType, String displayName) {
+        this.repository = repository;
+        this.voucherType = voucherType;
+        this.displayName = displayName;
+
+        String table = voucherType.getTableName();
+        this.transitionSql = "UPDATE " + table + " SET status = ?, version = version + 1 "
+                + "WHERE id = ? AND version = ? AND status = ?";
+        this.decideSql = "UPDATE " + table + " SET status = ?, approved_by = ?, approved_date = ?, version = version + 1 "
+                + "WHERE id = ? AND version = ? AND status = ?";
+        this.deleteSql = "DELETE FROM " + table + " WHERE id = ? AND version = ?";
+    }
+
+    @Override
+    public VoucherType getVoucherType() {
+        return voucherType;
+    }
+
+    @Override
+    @Transactional
+    public D createVoucher(D voucherDto) {
+        T voucher = mapToEntity(voucherDto);
+        voucher.setStatus(VoucherStatus.DRAFT);
+        voucher.setCreatedDate(LocalDate.now());
+        T savedVoucher = repository.save(voucher);
+        recordCreated(List.of(savedVoucher));
+        return mapToDto(savedVoucher);
+    }
+
+    @Override
+    @Transactional
+    public List<D> createVouchersBulk(List<D> voucherDtos) {
+        if (voucherDtos == null || voucherDtos.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Process in parallel using virtual threads, bounded by the connection pool
+        List<CompletableFuture<List<D>>> futures = new ArrayList<>();
+
+        // Split into smaller batches for parallel processing
+        for (int i = 0; i < voucherDtos.size(); i += BULK_BATCH_SIZE) {
+            int endIndex = Math.min(i + BULK_BATCH_SIZE, voucherDtos.size());
+            List<D> batch = voucherDtos.subList(i, endIndex);
+
+            // Process each batch in a virtual thread, in its own transaction with its CREATED events
+            CompletableFuture<List<D>> future = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+                // Map all DTOs to entities
+                List<T> vouchers = batch.stream()
+                        .map(this::mapToEntity)
+                        .peek(this::applyDefaults)
+                        .collect(Collectors.toList());
+
+                // Save all entities in a single batch operation and map them back to DTOs
+                List<T> savedVouchers = repository.saveAll(vouchers);
+                recordCreated(savedVouchers);
+                return savedVouchers.stream()
+                        .map(this::mapToDto)
+                        .collect(Collectors.toList());
+            }), boundedVirtualThreadExecutor);
+
+            futures.add(future);
+        }
+
+        // Combine all results
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Store voucher messages in one transaction on the calling thread, mapping them straight to
+     * entities without going through DTOs. Used by the JPA bulk writer, whose callers already hold
+     * a DB write permit, so the batch is not split across further threads
+     * @param messages The vouchers to store
+     * @return The number of vouchers stored
+     */
+    @Override
+    @Transactional
+    public int saveMessages(List<? extends VoucherMessage> messages) {
+        List<T> vouchers = new ArrayList<>(messages.size());
+        for (VoucherMessage message : messages) {
+            T voucher = mapMessageToEntity(message);
+            applyDefaults(voucher);
+            vouchers.add(voucher);
+        }
+        List<T> savedVouchers = repository.saveAll(vouchers);
+        recordCreated(savedVouchers);
+        return savedVouchers.size();
+    }
+
+    @Override
+    public D getVoucherById(Long id) {
+        return mapToDto(findVoucher(id));
+    }
+
+    @Override
+    public D getVoucherByNumber(String voucherNumber) {
+        T voucher = repository.findByVoucherNumber(voucherNumber)
+                .orElseThrow(() -> new ResourceNotFoundException(displayName + " not found with number: " + voucherNumber));
+        return mapToDto(voucher);
+    }
+
+    @Override
+    public Optional<String> getHighestVoucherNumber(String prefix) {
+        return repository.findFirstByVoucherNumberStartingWithOrderByVoucherNumberDesc(prefix)
+                .map(Voucher::getVoucherNumber);
+    }
+
+    /**
+     * The first app.voucher-list.max-results vouchers in id order; the keyset-paginated
+     * endpoints reach the rest
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<D> getAllVouchers() {
+        return repository.findAllByOrderByIdAsc(Limit.of(listMaxResults)).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The first app.voucher-list.max-results vouchers with the status, in id order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<D> getVouchersByStatus(VoucherStatus status) {
+        return repository.findByStatusOrderByIdAsc(status, Limit.of(listMaxResults)).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The first app.voucher-list.max-results vouchers dated in the range, in id order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<D> getVouchersByDateRange(LocalDate startDate, LocalDate endDate) {
+        return repository.findByVoucherDateBetweenOrderByIdAsc(startDate, endDate, Limit.of(listMaxResults)).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Keyset-paginated summaries by status, selecting only the projected columns
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<VoucherSummary> getVoucherSummariesByStatus(VoucherStatus status, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<VoucherSummary> summaries = repository.findSummariesByStatusAndIdGreaterThanOrderByIdAsc(
+                status, CursorPage.decodeCursor(cursor), Limit.of(pageSize + 1));
+        return toPage(summaries, pageSize, VoucherSummary::id);
+    }
+
+    /**
+     * Keyset-paginated summaries by creator, selecting only the projected columns
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<VoucherSummary> getVoucherSummariesByCreatedBy(String createdBy, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<VoucherSummary> summaries = repository.findSummariesByCreatedByAndIdGreaterThanOrderByIdAsc(
+                createdBy, CursorPage.decodeCursor(cursor), Limit.of(pageSize + 1));
+        return toPage(summaries, pageSize, VoucherSummary::id);
+    }
+
+    /**
+     * Update the content of an editable voucher. A version given with the DTO must match the stored
+     * one; a change committed by someone else between the read and the flush fails Hibernate's
+     * version check. Either way the caller gets a 409 Conflict instead of overwriting that change
+     */
+    @Override
+    @Transactional
+    public D updateVoucher(Long id, D voucherDto) {
+        T voucher = findVoucher(id);
+
+        if (!voucher.getStatus().isEditable()) {
+            throw new InvalidStatusTransitionException("Cannot update a voucher in status " + voucher.getStatus());
+        }
+        // The loaded entity is managed, so Hibernate would ignore a version set on it; compare instead
+        if (voucherDto.getVersion() != null && voucherDto.getVersion() != voucher.getVersion()) {
+            throw conflict(id);
+        }
+
+        voucher.setVoucherNumber(voucherDto.getVoucherNumber());
+        voucher.setVoucherDate(voucherDto.getVoucherDate());
+        voucher.setAmount(voucherDto.getAmount());
+        voucher.setDescription(voucherDto.getDescription());
+        copyAccounts(voucherDto, voucher);
+
+        T updatedVoucher = saveVoucher(voucher);
+        afterCommit(() -> onVoucherChanged(id));
+        return mapToDto(updatedVoucher);
+    }
+
+    @Override
+    @Transactional
+    public D approveVoucher(Long id, String approvedBy) {
+        return transitionVoucher(id, VoucherStatus.APPROVED, approvedBy, null);
+    }
+
+    @Override
+    @Transactional
+    public D rejectVoucher(Long id, String rejectedBy) {
+        return transitionVoucher(id, VoucherStatus.REJECTED, rejectedBy, null);
+    }
+
+    /**
+     * Move a voucher to another status with a single compare-and-set UPDATE on id, version and
+     * status. No row lock is taken: if another request changed the voucher since it was read, the
+     * UPDATE matches no row and the caller gets a 409 Conflict to reload and retry. The change's
+     * event is written to the outbox in the same transaction
+     */
+    @Override
+    @Transactional
+    public D transitionVoucher(Long id, VoucherStatus target, String actor, Long expectedVersion) {
+        T voucher = findVoucher(id);
+        VoucherStatus current = voucher.getStatus();
+
+        if (!current.canTransitionTo(target)) {
+            throw new InvalidStatusTransitionException(displayName + " " + id + " cannot go from " + current
+                    + " to " + target + "; allowed: " + current.nextStatuses());
+        }
+        if (expectedVersion != null && expectedVersion != voucher.getVersion()) {
+            throw conflict(id);
+        }
+
+        // Approvals and rejections record who decided and when; approvedBy also holds the rejecter
+        boolean decision = target == VoucherStatus.APPROVED || target == VoucherStatus.REJECTED;
+        LocalDate today = LocalDate.now();
+        int updated = decision
+                ? jdbcTemplate.update(decideSql, target.name(), actor, today, id, voucher.getVersion(), current.name())
+                : jdbcTemplate.update(transitionSql, target.name(), id, voucher.getVersion(), current.name());
+        if (updated == 0) {
+            // A miss means any cached copy is stale
+            evictEntity(id);
+            throw conflict(id);
+        }
+
+        voucherEventOutbox.record(event(voucher, VoucherEventType.of(target), target, voucher.getVersion() + 1, actor));
+        if (target == VoucherStatus.APPROVED) {
+            // The transition table allows a voucher to be approved only once
+            accountBalanceService.recordApproval(debitAccountOf(voucher), creditAccountOf(voucher),
+                    voucher.getAmount(), today);
+        }
+        afterCommit(() -> afterChange(id));
+
+        // Report the new state on the DTO; changing the loaded entity would let a later flush write it again
+        D dto = mapToDto(voucher);
+        dto.setStatus(target);
+        dto.setVersion(voucher.getVersion() + 1);
+        if (decision) {
+            dto.setApprovedBy(actor);
+            dto.setApprovedDate(today);
+        }
+        return dto;
+    }
+
+    /**
+     * Delete a voucher with a compare-and-set DELETE on id and version
+     */
+    @Override
+    @Transactional
+    public void deleteVoucher(Long id) {
+        T voucher = findVoucher(id);
+
+        if (!voucher.getStatus().isDeletable()) {
+            throw new InvalidStatusTransitionException("Cannot delete a voucher in status " + voucher.getStatus());
+        }
+
+        int deleted = jdbcTemplate.update(deleteSql, id, voucher.getVersion());
+        if (deleted == 0) {
+            evictEntity(id);
+            throw conflict(id);
+        }
+        voucherEventOutbox.record(event(voucher, VoucherEventType.DELETED, voucher.getStatus(), voucher.getVersion(), null));
+        afterCommit(() -> afterChange(id));
+    }
+
+    @Override
+    public BulkDecisionResult approveVouchers(List<VoucherVersion> vouchers, String approvedBy) {
+        return decideVouchers(vouchers, VoucherStatus.APPROVED, approvedBy);
+    }
+
+    @Override
+    public BulkDecisionResult rejectVouchers(List<VoucherVersion> vouchers, String rejectedBy) {
+        return decideVouchers(vouchers, VoucherStatus.REJECTED, rejectedBy);
+    }
+
+    @Override
+    public BulkDecisionResult approveVouchersByDateRange(LocalDate startDate, LocalDate endDate, String approvedBy) {
+        return decideVouchersByDateRange(startDate, endDate, VoucherStatus.APPROVED, approvedBy);
+    }
+
+    @Override
+    public BulkDecisionResult rejectVouchersByDateRange(LocalDate startDate, LocalDate endDate, String rejectedBy) {
+        return decideVouchersByDateRange(startDate, endDate, VoucherStatus.REJECTED, rejectedBy);
+    }
+
+    /**
+     * Approve or reject the given pending vouchers, one transaction per chunk. Vouchers whose
+     * version differs from the one given are reported as conflicts and left untouched
+     */
+    private BulkDecisionResult decideVouchers(List<VoucherVersion> vouchers, VoucherStatus decision, String decidedBy) {
+        BulkDecisionResult result = BulkDecisionResult.builder().status(decision).requested(vouchers.size()).build();
+
+        for (int i = 0; i < vouchers.size(); i += decisionChunkSize) {
+            List<VoucherVersion> chunk = vouchers.subList(i, Math.min(i + decisionChunkSize, vouchers.size()));
+            List<Long> changed = transactionTemplate.execute(status -> {
+                // Expected version by id; null accepts whatever version is current
+                Map<Long, Long> expected = new LinkedHashMap<>();
+                chunk.forEach(voucher -> expected.put(voucher.id(), voucher.version()));
+
+                List<VoucherDecisionRow> accepted = new ArrayList<>();
+                Set<Long> pending = new HashSet<>();
+                for (VoucherDecisionRow row : repository.findDecisionRowsByIdIn(expected.keySet(), VoucherStatus.PENDING_APPROVAL)) {
+                    pending.add(row.id());
+                    Long version = expected.get(row.id());
+                    if (version != null && version != row.version()) {
+                        result.getConflicts().add(row.id());
+                    } else {
+                        accepted.add(row);
+                    }
+                }
+                expected.keySet().stream().filter(id -> !pending.contains(id)).forEach(result.getSkipped()::add);
+                return applyDecision(accepted, decision, decidedBy, result);
+            });
+            result.setUpdated(result.getUpdated() + changed.size());
+            changed.forEach(this::afterChange);
+        }
+        return result;
+    }
+
+    /**
+     * Approve or reject all pending vouchers dated within a range, one transaction per chunk
+     */
+    private BulkDecisionResult decideVouchersByDateRange(LocalDate startDate, LocalDate endDate,
+                                                         VoucherStatus decision, String decidedBy) {
+        BulkDecisionResult result = BulkDecisionResult.builder().status(decision).build();
+
+        long afterId = 0;
+        while (true) {
+            List<VoucherDecisionRow> rows = repository.findDecisionRowsByDateRange(VoucherStatus.PENDING_APPROVAL,
+                    startDate, endDate, afterId, Limit.of(decisionChunkSize));
+            if (rows.isEmpty()) {
+                return result;
+            }
+            List<Long> changed = transactionTemplate.execute(status -> applyDecision(rows, decision, decidedBy, result));
+            result.setRequested(result.getRequested() + rows.size());
+            result.setUpdated(result.getUpdated() + changed.size());
+            changed.forEach(this::afterChange);
+            afterId = rows.get(rows.size() - 1).id();
+        }
+    }
+
+    /**
+     * Move pending vouchers to a decision with one JDBC batch of compare-and-set UPDATEs, write
+     * their events to the outbox and post the approvals to the account balances once the
+     * surrounding transaction commits. Rows changed since they were read match nothing and are
+     * reported as conflicts
+     * @return The ids changed
+     */
+    private List<Long> applyDecision(List<VoucherDecisionRow> rows, VoucherStatus decision, String decidedBy,
+                                     BulkDecisionResult result) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        LocalDate today = LocalDate.now();
+        List<Object[]> args = rows.stream()
+                .map(row -> new Object[]{decision.name(), decidedBy, today, row.id(), row.version(),
+                        VoucherStatus.PENDING_APPROVAL.name()})
+                .toList();
+        int[] counts = jdbcTemplate.batchUpdate(decideSql, args);
+
+        List<Long> changed = new ArrayList<>(rows.size());
+        List<VoucherEvent> events = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            VoucherDecisionRow row = rows.get(i);
+            if (counts[i] == 0) {
+                result.getConflicts().add(row.id());
+                continue;
+            }
+            changed.add(row.id());
+            events.add(VoucherEvent.builder()
+                    .eventType(VoucherEventType.of(decision))
+                    .voucherType(voucherType)
+                    .voucherId(row.id())
+                    .voucherNumber(row.voucherNumber())
+                    .status(decision)
+                    .version(row.version() + 1)
+                    .amount(row.amount())
+                    .debitAccount(row.debitAccount())
+                    .creditAccount(row.creditAccount())
+                    .actor(decidedBy)
+                    .build());
+            if (decision == VoucherStatus.APPROVED) {
+                accountBalanceService.recordApproval(row.debitAccount(), row.creditAccount(), row.amount(), today);
+            }
+        }
+        voucherEventOutbox.recordAll(events);
+        return changed;
+    }
+
+    /**
+     * @param id The voucher id
+     * @return The voucher entity
+     * @throws ResourceNotFoundException if there is no voucher with that id
+     */
+    protected T findVoucher(Long id) {
+        return repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(displayName + " not found with id: " + id));
+    }
+
+    /**
+     * Save and flush a voucher, turning a failed optimistic lock check into a 409 Conflict. Flushing
+     * here runs the versioned UPDATE now rather than at commit, outside this check
+     */
+    private T saveVoucher(T voucher) {
+        try {
+            return repository.saveAndFlush(voucher);
+        } catch (OptimisticLockingFailureException e) {
+            throw new VoucherConflictException(conflictMessage(voucher.getId()), e);
+        }
+    }
+
+    private VoucherConflictException conflict(Long id) {
+        return new VoucherConflictException(conflictMessage(id));
+    }
+
+    private String conflictMessage(Long id) {
+        return displayName + " " + id + " was changed by someone else, reload it and try again";
+    }
+
+    private void afterChange(Long id) {
+        evictEntity(id);
+        onVoucherChanged(id);
+    }
+
+    /**
+     * Run an action once the current transaction commits, or now if there is none
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Write CREATED events for newly saved vouchers to the outbox. Must run in the transaction that saved them
+     */
+    void recordCreated(List<T> vouchers) {
+        voucherEventOutbox.recordAll(vouchers.stream()
+                .map(voucher -> event(voucher, VoucherEventType.CREATED, voucher.getStatus(), voucher.getVersion(),
+                        voucher.getCreatedBy()))
+                .toList());
+    }
+
+    private VoucherEvent event(T voucher, VoucherEventType eventType, VoucherStatus status, long version, String actor) {
+        return VoucherEvent.builder()
+                .eventType(eventType)
+                .voucherType(voucherType)
+                .voucherId(voucher.getId())
+                .voucherNumber(voucher.getVoucherNumber())
+                .status(status)
+                .version(version)
+                .amount(voucher.getAmount())
+                .debitAccount(debitAccountOf(voucher))
+                .creditAccount(creditAccountOf(voucher))
+                .actor(actor)
+                .build();
+    }
+
+    /**
+     * Remove a voucher from the Hibernate second-level cache after changing it with plain SQL
+     */
+    private void evictEntity(Long id) {
+        entityManagerFactory.getCache().evict(newVoucher().getClass(), id);
+    }
+
+    /**
+     * Called after a voucher has been updated, approved, rejected or deleted
+     * @param id The voucher id
+     */
+    protected void onVoucherChanged(Long id) {
+    }
+
+    /**
+     * Build a page from rows fetched with limit pageSize + 1; the extra row only signals a next page
+     */
+    protected static <R> CursorPage<R> toPage(List<R> rows, int pageSize, Function<R, Long> idOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<R> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return CursorPage.<R>builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CursorPage.encodeCursor(idOf.apply(items.get(items.size() - 1))) : null)
+                .build();
+    }
+
+    private void applyDefaults(T voucher) {
+        // New vouchers start as DRAFT or PENDING_APPROVAL; anything else must go through the transition table
+        voucher.setStatus(VoucherStatus.initial(voucher.getStatus()));
+        voucher.setApprovedBy(null);
+        voucher.setApprovedDate(null);
+        if (voucher.getCreatedDate() == null) {
+            voucher.setCreatedDate(LocalDate.now());
+        }
+    }
+
+    /**
+     * Map a voucher message to a new, unsaved entity
+     */
+    T mapMessageToEntity(VoucherMessage message) {
+        T voucher = newVoucher();
+        voucher.setVoucherNumber(message.getVoucherNumber());
+        voucher.setVoucherDate(message.getVoucherDate());
+        voucher.setAmount(message.getAmount());
+        voucher.setDescription(message.getDescription());
+        voucher.setCreatedBy(message.getCreatedBy());
+        voucher.setCreatedDate(message.getCreatedDate());
+        voucher.setStatus(message.getStatus());
+        setAccounts(voucher, message.getDebitAccount(), message.getCreditAccount());
+        return voucher;
+    }
+
+    // Type-specific mapping, package-private for the JMH benchmarks
+    abstract D mapToDto(T voucher);
+
+    abstract T mapToEntity(D dto);
+
+    abstract T newVoucher();
+
+    abstract void setAccounts(T voucher, String debitAccount, String creditAccount);
+
+    abstract void copyAccounts(D dto, T voucher);
+
+    abstract String debitAccountOf(T voucher);
+
+    abstract String creditAccountOf(T voucher);
+}
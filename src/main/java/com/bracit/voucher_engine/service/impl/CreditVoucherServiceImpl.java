@@ -0,0 +1,82 @@
+package com.bracit.voucher_engine.service.impl;
+
+import com.bracit.voucher_engine.dto.CreditVoucherDto;
+import com.bracit.voucher_engine.model.CreditVoucher;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.repository.CreditVoucherRepository;
+import com.bracit.voucher_engine.service.CreditVoucherService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CreditVoucherServiceImpl extends AbstractVoucherService<CreditVoucher, CreditVoucherDto>
+        implements CreditVoucherService {
+
+    @Autowired
+    public CreditVoucherServiceImpl(CreditVoucherRepository creditVoucherRepository) {
+        super(creditVoucherRepository, VoucherType.CREDIT, "Credit Voucher");
+    }
+
+    @Override
+    CreditVoucherDto mapToDto(CreditVoucher voucher) {
+        return CreditVoucherDto.builder()
+                .id(voucher.getId())
+                .voucherNumber(voucher.getVoucherNumber())
+                .voucherDate(voucher.getVoucherDate())
+                .amount(voucher.getAmount())
+                .description(voucher.getDescription())
+                .createdBy(voucher.getCreatedBy())
+                .createdDate(voucher.getCreatedDate())
+                .approvedBy(voucher.getApprovedBy())
+                .approvedDate(voucher.getApprovedDate())
+                .status(voucher.getStatus())
+                .version(voucher.getVersion())
+                .creditAccount(voucher.getCreditAccount())
+                .debitAccount(voucher.getDebitAccount())
+                .build();
+    }
+
+    @Override
+    CreditVoucher mapToEntity(CreditVoucherDto dto) {
+        return CreditVoucher.builder()
+                .id(dto.getId())
+                .voucherNumber(dto.getVoucherNumber())
+                .voucherDate(dto.getVoucherDate())
+                .amount(dto.getAmount())
+                .description(dto.getDescription())
+                .createdBy(dto.getCreatedBy())
+                .createdDate(dto.getCreatedDate())
+                .approvedBy(dto.getApprovedBy())
+                .approvedDate(dto.getApprovedDate())
+                .status(dto.getStatus())
+                .creditAccount(dto.getCreditAccount())
+                .debitAccount(dto.getDebitAccount())
+                .build();
+    }
+
+    @Override
+    CreditVoucher newVoucher() {
+        return new CreditVoucher();
+    }
+
+    @Override
+    void setAccounts(CreditVoucher voucher, String debitAccount, String creditAccount) {
+        voucher.setDebitAccount(debitAccount);
+        voucher.setCreditAccount(creditAccount);
+    }
+
+    @Override
+    void copyAccounts(CreditVoucherDto dto, CreditVoucher voucher) {
+        setAccounts(voucher, dto.getDebitAccount(), dto.getCreditAccount());
+    }
+
+    @Override
+    String debitAccountOf(CreditVoucher voucher) {
+        return voucher.getDebitAccount();
+    }
+
+    @Override
+    String creditAccountOf(CreditVoucher voucher) {
+        return voucher.getCreditAccount();
+    }
+}
@@ -1,95 +1,73 @@
 package com.bracit.voucher_engine.service.impl;
 
+import com.bracit.voucher_engine.dto.CursorPage;
 import com.bracit.voucher_engine.dto.DebitVoucherDto;
-import com.bracit.voucher_engine.exception.ResourceNotFoundException;
 import com.bracit.voucher_engine.model.DebitVoucher;
 import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
 import com.bracit.voucher_engine.repository.DebitVoucherRepository;
+import com.bracit.voucher_engine.service.DebitVoucherCache;
 import com.bracit.voucher_engine.service.DebitVoucherService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class DebitVoucherServiceImpl implements DebitVoucherService {
+public class DebitVoucherServiceImpl extends AbstractVoucherService<DebitVoucher, DebitVoucherDto>
+        implements DebitVoucherService {
 
     private final DebitVoucherRepository debitVoucherRepository;
+    private final DebitVoucherCache voucherCache;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @Autowired
     @Qualifier("virtualThreadExecutor")
     private ExecutorService virtualThreadExecutor;
 
     @Autowired
-    public DebitVoucherServiceImpl(DebitVoucherRepository debitVoucherRepository) {
+    public DebitVoucherServiceImpl(DebitVoucherRepository debitVoucherRepository, DebitVoucherCache voucherCache) {
+        super(debitVoucherRepository, VoucherType.DEBIT, "Debit Voucher");
         this.debitVoucherRepository = debitVoucherRepository;
+        this.voucherCache = voucherCache;
     }
 
-    @Override
-    public DebitVoucherDto createVoucher(DebitVoucherDto voucherDto) {
-        DebitVoucher voucher = mapToEntity(voucherDto);
-        voucher.setStatus(VoucherStatus.DRAFT);
-        voucher.setCreatedDate(LocalDate.now());
-        DebitVoucher savedVoucher = debitVoucherRepository.save(voucher);
-        return mapToDto(savedVoucher);
-    }
-
+    /**
+     * Create vouchers with the same defaults as createVoucher, all in one transaction on the
+     * calling thread. Used by the write-behind buffer to group-commit individually submitted vouchers
+     * @param voucherDtos The vouchers to create
+     * @return The saved vouchers, in the order they were given
+     */
     @Override
     @Transactional
-    public List<DebitVoucherDto> createVouchersBulk(List<DebitVoucherDto> voucherDtos) {
-        if (voucherDtos == null || voucherDtos.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        // Process in parallel using virtual threads for better performance
-        int batchSize = 100; // Adjust based on your database capabilities
-        List<CompletableFuture<List<DebitVoucherDto>>> futures = new ArrayList<>();
-        
-        // Split into smaller batches for parallel processing
-        for (int i = 0; i < voucherDtos.size(); i += batchSize) {
-            int endIndex = Math.min(i + batchSize, voucherDtos.size());
-            List<DebitVoucherDto> batch = voucherDtos.subList(i, endIndex);
-            
-            // Process each batch in a virtual thread
-            CompletableFuture<List<DebitVoucherDto>> future = CompletableFuture.supplyAsync(() -> {
-                // Map all DTOs to entities
-                List<DebitVoucher> vouchers = batch.stream()
-                        .map(this::mapToEntity)
-                        .peek(voucher -> {
-                            // Set default values if not already set
-                            if (voucher.getStatus() == null) {
-                                voucher.setStatus(VoucherStatus.DRAFT);
-                            }
-                            if (voucher.getCreatedDate() == null) {
-                                voucher.setCreatedDate(LocalDate.now());
-                            }
-                        })
-                        .collect(Collectors.toList());
-                
-                // Save all entities in a single batch operation
-                List<DebitVoucher> savedVouchers = debitVoucherRepository.saveAll(vouchers);
-                
-                // Map saved entities back to DTOs
-                return savedVouchers.stream()
-                        .map(this::mapToDto)
-                        .collect(Collectors.toList());
-            }, virtualThreadExecutor);
-            
-            futures.add(future);
-        }
+    public List<DebitVoucherDto> createVoucherGroup(List<DebitVoucherDto> voucherDtos) {
+        LocalDate today = LocalDate.now();
+        List<DebitVoucher> vouchers = voucherDtos.stream()
+                .map(this::mapToEntity)
+                .peek(voucher -> {
+                    voucher.setStatus(VoucherStatus.DRAFT);
+                    voucher.setCreatedDate(today);
+                })
+                .collect(Collectors.toList());
         
-        // Combine all results
-        return futures.stream()
-                .map(CompletableFuture::join)
-                .flatMap(List::stream)
+        List<DebitVoucher> savedVouchers = debitVoucherRepository.saveAll(vouchers);
+        recordCreated(savedVouchers);
+        return savedVouchers.stream()
+                .map(this::mapToDto)
                 .collect(Collectors.toList());
     }
 
@@ -97,104 +75,89 @@ public class DebitVoucherServiceImpl implements DebitVoucherService {
     @Async("asyncTaskExecutor")
     public CompletableFuture<DebitVoucherDto> getVoucherByIdAsync(Long id) {
         return CompletableFuture.supplyAsync(() -> {
-            DebitVoucher voucher = debitVoucherRepository.findById(id)
-                    .orElseThrow(() -> new ResourceNotFoundException("Debit Voucher not found with id: " + id));
-            return mapToDto(voucher);
+            return getVoucherById(id);
         }, virtualThreadExecutor);
     }
 
     @Override
     public DebitVoucherDto getVoucherById(Long id) {
-        DebitVoucher voucher = debitVoucherRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Debit Voucher not found with id: " + id));
-        return mapToDto(voucher);
+        return voucherCache.getById(id, key -> mapToDto(findVoucher(key)));
     }
 
     @Override
     public DebitVoucherDto getVoucherByNumber(String voucherNumber) {
-        DebitVoucher voucher = debitVoucherRepository.findByVoucherNumber(voucherNumber)
-                .orElseThrow(() -> new ResourceNotFoundException("Debit Voucher not found with number: " + voucherNumber));
-        return mapToDto(voucher);
-    }
-
-    @Override
-    public List<DebitVoucherDto> getAllVouchers() {
-        List<DebitVoucher> vouchers = debitVoucherRepository.findAll();
-        return vouchers.stream().map(this::mapToDto).collect(Collectors.toList());
+        return voucherCache.getByNumber(voucherNumber, () -> super.getVoucherByNumber(voucherNumber));
     }
 
+    /**
+     * Keyset pagination over id: each page is an index range scan starting after the cursor,
+     * so deep pages cost the same as the first one
+     */
     @Override
-    public List<DebitVoucherDto> getVouchersByStatus(VoucherStatus status) {
-        List<DebitVoucher> vouchers = debitVoucherRepository.findByStatus(status);
-        return vouchers.stream().map(this::mapToDto).collect(Collectors.toList());
-    }
-
-    @Override
-    public List<DebitVoucherDto> getVouchersByDateRange(LocalDate startDate, LocalDate endDate) {
-        List<DebitVoucher> vouchers = debitVoucherRepository.findByVoucherDateBetween(startDate, endDate);
-        return vouchers.stream().map(this::mapToDto).collect(Collectors.toList());
-    }
-
-    @Override
-    public DebitVoucherDto updateVoucher(Long id, DebitVoucherDto voucherDto) {
-        DebitVoucher voucher = debitVoucherRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Debit Voucher not found with id: " + id));
+    @Transactional(readOnly = true)
+    public CursorPage<DebitVoucherDto> getVouchersPage(String cursor, int size, VoucherStatus status,
+                                                       LocalDate startDate, LocalDate endDate) {
+        long afterId = CursorPage.decodeCursor(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to find out whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+        boolean dateRange = startDate != null && endDate != null;
         
-        if (voucher.getStatus() == VoucherStatus.APPROVED) {
-            throw new IllegalStateException("Cannot update an approved voucher");
+        List<DebitVoucher> vouchers;
+        if (status != null && dateRange) {
+            vouchers = debitVoucherRepository.findByStatusAndVoucherDateBetweenAndIdGreaterThanOrderByIdAsc(
+                    status, startDate, endDate, afterId, limit);
+        } else if (status != null) {
+            vouchers = debitVoucherRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, afterId, limit);
+        } else if (dateRange) {
+            vouchers = debitVoucherRepository.findByVoucherDateBetweenAndIdGreaterThanOrderByIdAsc(
+                    startDate, endDate, afterId, limit);
+        } else {
+            vouchers = debitVoucherRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit);
         }
         
-        voucher.setVoucherNumber(voucherDto.getVoucherNumber());
-        voucher.setVoucherDate(voucherDto.getVoucherDate());
-        voucher.setAmount(voucherDto.getAmount());
-        voucher.setDescription(voucherDto.getDescription());
-        voucher.setDebitAccount(voucherDto.getDebitAccount());
-        voucher.setCreditAccount(voucherDto.getCreditAccount());
-        
-        DebitVoucher updatedVoucher = debitVoucherRepository.save(voucher);
-        return mapToDto(updatedVoucher);
-    }
-
-    @Override
-    public DebitVoucherDto approveVoucher(Long id, String approvedBy) {
-        DebitVoucher voucher = debitVoucherRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Debit Voucher not found with id: " + id));
-        
-        voucher.setStatus(VoucherStatus.APPROVED);
-        voucher.setApprovedBy(approvedBy);
-        voucher.setApprovedDate(LocalDate.now());
-        
-        DebitVoucher approvedVoucher = debitVoucherRepository.save(voucher);
-        return mapToDto(approvedVoucher);
+        return toPage(vouchers.stream().map(this::mapToDto).collect(Collectors.toList()),
+                pageSize, DebitVoucherDto::getId);
     }
 
+    /**
+     * Stream matching vouchers in id order to the given consumer in constant memory.
+     * Rows are fetched with a JDBC fetch size and detached once handed over, so the
+     * persistence context never grows beyond a single entity
+     */
     @Override
-    public DebitVoucherDto rejectVoucher(Long id, String rejectedBy) {
-        DebitVoucher voucher = debitVoucherRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Debit Voucher not found with id: " + id));
+    @Transactional(readOnly = true)
+    public void exportVouchers(VoucherStatus status, LocalDate startDate, LocalDate endDate,
+                               Consumer<DebitVoucherDto> consumer) {
+        boolean dateRange = startDate != null && endDate != null;
         
-        voucher.setStatus(VoucherStatus.REJECTED);
-        voucher.setApprovedBy(rejectedBy); // Using approvedBy field to store rejectedBy
-        voucher.setApprovedDate(LocalDate.now());
+        Stream<DebitVoucher> vouchers;
+        if (status != null && dateRange) {
+            vouchers = debitVoucherRepository.streamByStatusAndVoucherDateBetweenOrderByIdAsc(status, startDate, endDate);
+        } else if (status != null) {
+            vouchers = debitVoucherRepository.streamByStatusOrderByIdAsc(status);
+        } else if (dateRange) {
+            vouchers = debitVoucherRepository.streamByVoucherDateBetweenOrderByIdAsc(startDate, endDate);
+        } else {
+            vouchers = debitVoucherRepository.streamAllByOrderByIdAsc();
+        }
         
-        DebitVoucher rejectedVoucher = debitVoucherRepository.save(voucher);
-        return mapToDto(rejectedVoucher);
+        try (vouchers) {
+            vouchers.forEach(voucher -> {
+                consumer.accept(mapToDto(voucher));
+                entityManager.detach(voucher);
+            });
+        }
     }
 
     @Override
-    public void deleteVoucher(Long id) {
-        DebitVoucher voucher = debitVoucherRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Debit Voucher not found with id: " + id));
-        
-        if (voucher.getStatus() == VoucherStatus.APPROVED) {
-            throw new IllegalStateException("Cannot delete an approved voucher");
-        }
-        
-        debitVoucherRepository.delete(voucher);
+    protected void onVoucherChanged(Long id) {
+        voucherCache.evict(id);
     }
     
-    // Helper methods for mapping between entity and DTO
-    private DebitVoucherDto mapToDto(DebitVoucher voucher) {
+    // Helper methods for mapping between entity and DTO (package-private for the JMH benchmarks)
+    @Override
+    DebitVoucherDto mapToDto(DebitVoucher voucher) {
         return DebitVoucherDto.builder()
                 .id(voucher.getId())
                 .voucherNumber(voucher.getVoucherNumber())
@@ -206,12 +169,14 @@ public class DebitVoucherServiceImpl implements DebitVoucherService {
                 .approvedBy(voucher.getApprovedBy())
                 .approvedDate(voucher.getApprovedDate())
                 .status(voucher.getStatus())
+                .version(voucher.getVersion())
                 .debitAccount(voucher.getDebitAccount())
                 .creditAccount(voucher.getCreditAccount())
                 .build();
     }
     
-    private DebitVoucher mapToEntity(DebitVoucherDto dto) {
+    @Override
+    DebitVoucher mapToEntity(DebitVoucherDto dto) {
         return DebitVoucher.builder()
                 .id(dto.getId())
                 .voucherNumber(dto.getVoucherNumber())
@@ -227,4 +192,30 @@ public class DebitVoucherServiceImpl implements DebitVoucherService {
                 .creditAccount(dto.getCreditAccount())
                 .build();
     }
-} 
\ No newline at end of file
+    
+    @Override
+    DebitVoucher newVoucher() {
+        return new DebitVoucher();
+    }
+    
+    @Override
+    void setAccounts(DebitVoucher voucher, String debitAccount, String creditAccount) {
+        voucher.setDebitAccount(debitAccount);
+        voucher.setCreditAccount(creditAccount);
+    }
+    
+    @Override
+    void copyAccounts(DebitVoucherDto dto, DebitVoucher voucher) {
+        setAccounts(voucher, dto.getDebitAccount(), dto.getCreditAccount());
+    }
+    
+    @Override
+    String debitAccountOf(DebitVoucher voucher) {
+        return voucher.getDebitAccount();
+    }
+    
+    @Override
+    String creditAccountOf(DebitVoucher voucher) {
+        return voucher.getCreditAccount();
+    }
+}
@@ -0,0 +1,64 @@
+package com.bracit.voucher_engine.service.impl;
+
+import com.bracit.voucher_engine.dto.BulkWriteResult;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.service.VoucherBulkWriter;
+import com.bracit.voucher_engine.service.VoucherNumberFilter;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+/**
+ * Makes bulk writes idempotent on voucher number. Vouchers repeating a number within the batch
+ * or already stored are dropped before the write (see VoucherNumberFilter) and reported as
+ * skipped, so a redelivered batch neither fails nor inserts twice. If a concurrent writer stores
+ * one of the numbers between the check and the write, the unique constraint rejects the write;
+ * the batch is then checked against the database in full and written once more.
+ */
+public class DeduplicatingVoucherBulkWriter implements VoucherBulkWriter {
+
+    private final VoucherBulkWriter delegate;
+    private final VoucherNumberFilter voucherNumberFilter;
+
+    public DeduplicatingVoucherBulkWriter(VoucherBulkWriter delegate, VoucherNumberFilter voucherNumberFilter) {
+        this.delegate = delegate;
+        this.voucherNumberFilter = voucherNumberFilter;
+    }
+
+    @Override
+    public BulkWriteResult write(List<? extends VoucherMessage> messages) {
+        long start = System.nanoTime();
+        List<? extends VoucherMessage> fresh = voucherNumberFilter.removeDuplicates(messages);
+
+        int written = 0;
+        if (!fresh.isEmpty()) {
+            try {
+                written = delegate.write(fresh).getWritten();
+            } catch (DataIntegrityViolationException e) {
+                // Both writers write the batch in one transaction on this thread, so nothing of it was stored
+                fresh = voucherNumberFilter.removeExisting(fresh);
+                written = fresh.isEmpty() ? 0 : delegate.write(fresh).getWritten();
+            }
+            voucherNumberFilter.addAll(fresh);
+        }
+
+        return BulkWriteResult.builder()
+                .writer(getName())
+                .type(getType())
+                .requested(messages.size())
+                .written(written)
+                .elapsedNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    @Override
+    public VoucherType getType() {
+        return delegate.getType();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+}
@@ -0,0 +1,46 @@
+package com.bracit.voucher_engine.service.impl;
+
+import com.bracit.voucher_engine.dto.BulkWriteResult;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.service.VoucherBulkWriter;
+import com.bracit.voucher_engine.service.VoucherService;
+
+import java.util.List;
+
+/**
+ * Bulk writer that goes through JPA batching (VoucherService.saveMessages of the voucher type).
+ * Used on databases without COPY support, such as H2.
+ */
+public class JpaVoucherBulkWriter implements VoucherBulkWriter {
+
+    private final VoucherService<?> voucherService;
+
+    public JpaVoucherBulkWriter(VoucherService<?> voucherService) {
+        this.voucherService = voucherService;
+    }
+
+    @Override
+    public BulkWriteResult write(List<? extends VoucherMessage> messages) {
+        long start = System.nanoTime();
+        int saved = voucherService.saveMessages(messages);
+        
+        return BulkWriteResult.builder()
+                .writer(getName())
+                .type(getType())
+                .requested(messages.size())
+                .written(saved)
+                .elapsedNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    @Override
+    public VoucherType getType() {
+        return voucherService.getVoucherType();
+    }
+
+    @Override
+    public String getName() {
+        return "jpa";
+    }
+}
@@ -0,0 +1,239 @@
+package com.bracit.voucher_engine.service.impl;
+
+import com.bracit.voucher_engine.dto.BulkWriteResult;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.model.Voucher;
+import com.bracit.voucher_engine.model.VoucherEventType;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.service.VoucherBulkWriter;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Bulk writer for PostgreSQL that streams vouchers with COPY FROM STDIN (CSV) into a
+ * session-local staging table and merges them into the table of its voucher type with
+ * INSERT ... ON CONFLICT (voucher_number) DO NOTHING. No JPA entities are created.
+ * Unless events are disabled, the same statement writes a CREATED event to the voucher_events
+ * outbox for every voucher it inserted, so the events commit together with the vouchers.
+ * Debit and credit vouchers have the same columns, so only the table names differ.
+ */
+public class PostgresCopyVoucherBulkWriter implements VoucherBulkWriter {
+
+    private static final String COLUMNS = "id, voucher_number, voucher_date, amount, description, created_by, "
+            + "created_date, approved_by, approved_date, status, debit_account, credit_account";
+
+    private static final String RESERVE_IDS_SQL = "SELECT nextval('" + Voucher.ID_SEQUENCE + "') FROM generate_series(1, ?)";
+
+    private static final String SEQUENCE_INCREMENT_SQL = "SELECT increment_by FROM pg_sequences "
+            + "WHERE schemaname = current_schema() AND sequencename = '" + Voucher.ID_SEQUENCE + "'";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String EVENT_COLUMNS = "event_type, voucher_type, voucher_id, voucher_number, status, "
+            + "version, amount, debit_account, credit_account, actor, occurred_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VoucherType type;
+    private final String stagingTable;
+    private final String createStagingSql;
+    private final String copySql;
+    private final String mergeSql;
+
+    private volatile long sequenceIncrement;
+
+    /**
+     * @param jdbcTemplate JDBC template bound to the application data source
+     * @param transactionTemplate Transaction each write runs in, so the staging table is emptied on commit
+     * @param type The voucher type written
+     * @param recordEvents Whether to write CREATED events for the inserted vouchers
+     */
+    public PostgresCopyVoucherBulkWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                         VoucherType type, boolean recordEvents) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.type = type;
+        this.stagingTable = type.getTableName() + "_staging";
+        this.createStagingSql = "CREATE TEMP TABLE IF NOT EXISTS " + stagingTable
+                + " (LIKE " + type.getTableName() + " INCLUDING DEFAULTS) ON COMMIT DELETE ROWS";
+        this.copySql = "COPY " + stagingTable + " (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+        String insertSql = "INSERT INTO " + type.getTableName() + " (" + COLUMNS + ") "
+                + "SELECT " + COLUMNS + " FROM " + stagingTable + " "
+                + "ON CONFLICT (voucher_number) DO NOTHING";
+        // The outer INSERT counts one event per inserted voucher, so the update count is still the vouchers written
+        this.mergeSql = recordEvents
+                ? "WITH inserted AS (" + insertSql + " RETURNING id, voucher_number, status, version, amount, "
+                        + "debit_account, credit_account, created_by) "
+                        + "INSERT INTO voucher_events (" + EVENT_COLUMNS + ") "
+                        + "SELECT '" + VoucherEventType.CREATED.name() + "', '" + type.name() + "', id, voucher_number, "
+                        + "status, version, amount, debit_account, credit_account, created_by, CURRENT_TIMESTAMP "
+                        + "FROM inserted"
+                : insertSql;
+    }
+
+    @Override
+    public BulkWriteResult write(List<? extends VoucherMessage> messages) {
+        long start = System.nanoTime();
+        if (messages.isEmpty()) {
+            return BulkWriteResult.builder().writer(getName()).type(type).build();
+        }
+        // Fail before any I/O on a status vouchers cannot be created in; the bisecting writer isolates it
+        messages.forEach(message -> VoucherStatus.initial(message.getStatus()));
+
+        Integer written = transactionTemplate.execute(status -> jdbcTemplate.execute((Connection connection) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(createStagingSql);
+            }
+
+            long[] ids = reserveIds(connection, messages.size());
+            copyToStaging(connection, messages, ids);
+
+            try (Statement statement = connection.createStatement()) {
+                return statement.executeUpdate(mergeSql);
+            }
+        }));
+
+        return BulkWriteResult.builder()
+                .writer(getName())
+                .type(type)
+                .requested(messages.size())
+                .written(written != null ? written : 0)
+                .elapsedNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    @Override
+    public VoucherType getType() {
+        return type;
+    }
+
+    @Override
+    public String getName() {
+        return "copy";
+    }
+
+    /**
+     * Reserve ids from the voucher sequence the same way Hibernate's pooled-lo optimizer does:
+     * each nextval hands out a block of increment_by consecutive ids starting at the returned value
+     * @param connection The connection bound to the current transaction
+     * @param count Number of ids needed
+     * @return The reserved ids, one per voucher
+     */
+    private long[] reserveIds(Connection connection, int count) throws SQLException {
+        long increment = getSequenceIncrement(connection);
+        int blocks = (int) ((count + increment - 1) / increment);
+
+        long[] ids = new long[count];
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_IDS_SQL)) {
+            statement.setInt(1, blocks);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int index = 0;
+                while (resultSet.next() && index < count) {
+                    long low = resultSet.getLong(1);
+                    for (long i = 0; i < increment && index < count; i++) {
+                        ids[index++] = low + i;
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private long getSequenceIncrement(Connection connection) throws SQLException {
+        if (sequenceIncrement == 0) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(SEQUENCE_INCREMENT_SQL)) {
+                sequenceIncrement = resultSet.next() ? Math.max(1, resultSet.getLong(1)) : 1;
+            }
+        }
+        return sequenceIncrement;
+    }
+
+    /**
+     * Stream the batch into the staging table as CSV over the COPY protocol
+     */
+    private void copyToStaging(Connection connection, List<? extends VoucherMessage> messages, long[] ids) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        LocalDate today = LocalDate.now();
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pgConnection, copySql), StandardCharsets.UTF_8), COPY_BUFFER_SIZE)) {
+            for (int i = 0; i < messages.size(); i++) {
+                VoucherMessage message = messages.get(i);
+                VoucherStatus status = VoucherStatus.initial(message.getStatus());
+                LocalDate createdDate = message.getCreatedDate() != null ? message.getCreatedDate() : today;
+
+                writer.write(Long.toString(ids[i]));
+                writer.write(',');
+                writeText(writer, message.getVoucherNumber());
+                writer.write(',');
+                writeValue(writer, message.getVoucherDate());
+                writer.write(',');
+                writeValue(writer, message.getAmount() != null ? message.getAmount().toPlainString() : null);
+                writer.write(',');
+                writeText(writer, message.getDescription());
+                writer.write(',');
+                writeText(writer, message.getCreatedBy());
+                writer.write(',');
+                writeValue(writer, createdDate);
+                writer.write(",,"); // approved_by, approved_date
+                writer.write(',');
+                writer.write(status.name());
+                writer.write(',');
+                writeText(writer, message.getDebitAccount());
+                writer.write(',');
+                writeText(writer, message.getCreditAccount());
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new UncheckedIOException("COPY into " + stagingTable + " failed", e);
+        }
+    }
+
+    /**
+     * Write an unquoted value; an empty unquoted field is read as NULL by COPY CSV
+     */
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        if (value != null) {
+            writer.write(value.toString());
+        }
+    }
+
+    /**
+     * Write a quoted CSV string, doubling embedded quotes. NULL stays an empty unquoted field
+     */
+    private static void writeText(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
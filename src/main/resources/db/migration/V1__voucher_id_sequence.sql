@@ -0,0 +1,25 @@
+-- Moves debit_vouchers / credit_vouchers from IDENTITY ids to the shared voucher_id_seq
+-- sequence used by Voucher.id (pooled-lo optimizer, see application.properties).
+--
+-- Run once against an existing PostgreSQL database before starting the new version.
+-- Fresh databases do not need it: hibernate.ddl-auto=update creates the sequence.
+
+BEGIN;
+
+-- INCREMENT BY must match Voucher.ID_ALLOCATION_SIZE (or the value you want Hibernate to adopt)
+CREATE SEQUENCE IF NOT EXISTS voucher_id_seq START WITH 1 INCREMENT BY 50;
+
+-- Start handing out ids above anything issued by the old IDENTITY columns. With pooled-lo the
+-- value returned by nextval is the first id of the reserved block, so max(id) + 1 is safe.
+SELECT setval('voucher_id_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM debit_vouchers),
+                       (SELECT COALESCE(MAX(id), 0) FROM credit_vouchers)) + 1,
+              false);
+
+-- Ids are now assigned by the application; drop the IDENTITY/serial defaults
+ALTER TABLE debit_vouchers ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE debit_vouchers ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE credit_vouchers ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE credit_vouchers ALTER COLUMN id DROP DEFAULT;
+
+COMMIT;
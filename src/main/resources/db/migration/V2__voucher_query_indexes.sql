@@ -0,0 +1,31 @@
+-- Secondary indexes for the date-range queries (findByVoucherDateBetween and the status and
+-- date-range variants).
+--
+-- hibernate.ddl-auto=update creates plain versions of these from the @Table(indexes = ...)
+-- declarations on new databases. On existing PostgreSQL databases run this script instead:
+-- CONCURRENTLY builds without blocking ingestion.
+-- These indexes are not covering for the keyset-paginated summary queries: those filter on status
+-- or creator and order by id, which a (status, voucher_date) index cannot serve without a sort.
+-- V3 adds the (status, id) and (created_by, id) indexes they need and drops the creator/date one.
+-- CREATE INDEX CONCURRENTLY cannot run inside a transaction block; run statements one by one.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_debit_vouchers_status_date
+    ON debit_vouchers (status, voucher_date)
+    INCLUDE (id, voucher_number, amount, debit_account, credit_account);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_debit_vouchers_created_by_date
+    ON debit_vouchers (created_by, voucher_date)
+    INCLUDE (id, voucher_number, amount, status, debit_account, credit_account);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_debit_vouchers_voucher_date
+    ON debit_vouchers (voucher_date);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credit_vouchers_status_date
+    ON credit_vouchers (status, voucher_date)
+    INCLUDE (id, voucher_number, amount, debit_account, credit_account);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credit_vouchers_created_by_date
+    ON credit_vouchers (created_by, voucher_date)
+    INCLUDE (id, voucher_number, amount, status, debit_account, credit_account);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credit_vouchers_voucher_date
+    ON credit_vouchers (voucher_date);
+
+ANALYZE debit_vouchers;
+ANALYZE credit_vouchers;
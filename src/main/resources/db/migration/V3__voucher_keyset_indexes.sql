@@ -0,0 +1,28 @@
+-- Covering indexes for the keyset-paginated summary queries
+-- (findSummariesByStatusAndIdGreaterThanOrderByIdAsc, findSummariesByCreatedByAndIdGreaterThanOrderByIdAsc).
+--
+-- Both filter on one column and order by id, so (status, id) and (created_by, id) return a page
+-- as one range scan starting after the cursor, with no sort. The INCLUDE columns are the rest of
+-- VoucherSummary, which allows index-only scans on pages the visibility map marks all-visible.
+-- hibernate.ddl-auto=update creates the key columns only, without INCLUDE, on new databases.
+-- idx_*_created_by_date served no query and is replaced by the creator/id index.
+-- CREATE/DROP INDEX CONCURRENTLY cannot run inside a transaction block; run statements one by one.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_debit_vouchers_status_id
+    ON debit_vouchers (status, id)
+    INCLUDE (voucher_number, voucher_date, amount, debit_account, credit_account);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_debit_vouchers_created_by_id
+    ON debit_vouchers (created_by, id)
+    INCLUDE (voucher_number, voucher_date, amount, status, debit_account, credit_account);
+DROP INDEX CONCURRENTLY IF EXISTS idx_debit_vouchers_created_by_date;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credit_vouchers_status_id
+    ON credit_vouchers (status, id)
+    INCLUDE (voucher_number, voucher_date, amount, debit_account, credit_account);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_credit_vouchers_created_by_id
+    ON credit_vouchers (created_by, id)
+    INCLUDE (voucher_number, voucher_date, amount, status, debit_account, credit_account);
+DROP INDEX CONCURRENTLY IF EXISTS idx_credit_vouchers_created_by_date;
+
+VACUUM (ANALYZE) debit_vouchers;
+VACUUM (ANALYZE) credit_vouchers;
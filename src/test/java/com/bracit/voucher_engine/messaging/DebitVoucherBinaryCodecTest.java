@@ -0,0 +1,59 @@
+package com.bracit.voucher_engine.messaging;
+
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DebitVoucherBinaryCodecTest {
+
+	private static DebitVoucherMessage sampleVoucher() {
+		return DebitVoucherMessage.builder()
+				.voucherNumber("DV0000000042")
+				.voucherDate(LocalDate.of(2025, 3, 10))
+				.amount(new BigDecimal("1234.56"))
+				.description("Vendor payment — März")
+				.createdBy("SYSTEM")
+				.createdDate(LocalDate.of(2025, 3, 9))
+				.status(VoucherStatus.PENDING_APPROVAL)
+				.debitAccount("1001")
+				.creditAccount("2001")
+				.build();
+	}
+
+	@Test
+	void roundTripsAllFields() {
+		DebitVoucherMessage voucher = sampleVoucher();
+		assertThat(DebitVoucherBinaryCodec.decode(DebitVoucherBinaryCodec.encode(voucher))).isEqualTo(voucher);
+
+		DebitVoucherMessage sparse = DebitVoucherMessage.builder()
+				.voucherNumber("DV1")
+				.amount(new BigDecimal("123456789012345678901234567890.12"))
+				.build();
+		assertThat(DebitVoucherBinaryCodec.decode(DebitVoucherBinaryCodec.encode(sparse))).isEqualTo(sparse);
+	}
+
+	@Test
+	void converterNegotiatesByContentType() {
+		Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+		VoucherMessageConverter converter = new VoucherMessageConverter(json, true);
+		DebitVoucherMessage voucher = sampleVoucher();
+
+		Message binaryMessage = converter.toMessage(voucher, new MessageProperties());
+		Message jsonMessage = json.toMessage(voucher, new MessageProperties());
+
+		assertThat(binaryMessage.getMessageProperties().getContentType()).isEqualTo(DebitVoucherBinaryCodec.CONTENT_TYPE);
+		assertThat(binaryMessage.getBody().length).isLessThan(jsonMessage.getBody().length / 2);
+		assertThat(converter.fromMessage(binaryMessage)).isEqualTo(voucher);
+
+		jsonMessage.getMessageProperties().setInferredArgumentType(DebitVoucherMessage.class);
+		assertThat(converter.fromMessage(jsonMessage)).isEqualTo(voucher);
+	}
+}
@@ -0,0 +1,50 @@
+package com.bracit.voucher_engine.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.bracit.voucher_engine.model.VoucherStatus.APPROVED;
+import static com.bracit.voucher_engine.model.VoucherStatus.CANCELLED;
+import static com.bracit.voucher_engine.model.VoucherStatus.DRAFT;
+import static com.bracit.voucher_engine.model.VoucherStatus.PENDING_APPROVAL;
+import static com.bracit.voucher_engine.model.VoucherStatus.REJECTED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VoucherStatusTest {
+
+	private static void assertTransitions(VoucherStatus from, Set<VoucherStatus> allowed) {
+		for (VoucherStatus to : VoucherStatus.values()) {
+			assertThat(from.canTransitionTo(to))
+					.as("%s -> %s", from, to)
+					.isEqualTo(allowed.contains(to));
+		}
+		assertThat(from.nextStatuses()).containsExactlyInAnyOrderElementsOf(allowed);
+	}
+
+	@Test
+	void followsTheTransitionTable() {
+		assertTransitions(DRAFT, EnumSet.of(PENDING_APPROVAL, CANCELLED));
+		assertTransitions(PENDING_APPROVAL, EnumSet.of(APPROVED, REJECTED, CANCELLED));
+		assertTransitions(REJECTED, EnumSet.of(PENDING_APPROVAL, CANCELLED));
+		assertTransitions(APPROVED, EnumSet.noneOf(VoucherStatus.class));
+		assertTransitions(CANCELLED, EnumSet.noneOf(VoucherStatus.class));
+	}
+
+	@Test
+	void nextStatusesCannotBeModified() {
+		assertThatThrownBy(() -> DRAFT.nextStatuses().add(APPROVED))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThat(DRAFT.canTransitionTo(APPROVED)).isFalse();
+	}
+
+	@Test
+	void newVouchersStartAsDraftOrPendingApproval() {
+		assertThat(VoucherStatus.initial(null)).isEqualTo(DRAFT);
+		assertThat(VoucherStatus.initial(PENDING_APPROVAL)).isEqualTo(PENDING_APPROVAL);
+		assertThatThrownBy(() -> VoucherStatus.initial(APPROVED))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
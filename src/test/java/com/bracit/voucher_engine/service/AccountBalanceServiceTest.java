@@ -0,0 +1,136 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.model.AccountBalance;
+import com.bracit.voucher_engine.repository.AccountBalanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountBalanceServiceTest {
+
+	private static final LocalDate DAY_5 = LocalDate.of(2025, 3, 5);
+	private static final LocalDate DAY_7 = LocalDate.of(2025, 3, 7);
+	private static final LocalDate DAY_10 = LocalDate.of(2025, 3, 10);
+
+	private final AccountBalanceRepository repository = mock(AccountBalanceRepository.class);
+	private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+	private final AccountBalanceService service = new AccountBalanceService();
+
+	/**
+	 * Runs transaction synchronizations without a database
+	 */
+	private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "accountBalanceRepository", repository);
+		ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+		// Nothing flushed yet: every account only has its zero ORIGIN row
+		when(repository.findFirstByAccountAndBalanceDateLessThanEqualOrderByBalanceDateDesc(anyString(), any()))
+				.thenAnswer(invocation -> Optional.of(AccountBalance.builder()
+						.account(invocation.getArgument(0))
+						.balanceDate(AccountBalance.ORIGIN)
+						.build()));
+	}
+
+	private BigDecimal debitTotal(String account, LocalDate asOf) {
+		return service.getBalance(account, asOf).getDebitTotal();
+	}
+
+	@Test
+	void postsBackDatedTotalsToTheirDayAndEveryLaterDay() {
+		service.recordApproval("1000", "2000", new BigDecimal("1.00"), DAY_10);
+		service.recordApproval("1000", "2000", new BigDecimal("2.00"), DAY_5);
+
+		// Unflushed totals only count up to the day asked for
+		assertThat(debitTotal("1000", DAY_7)).isEqualByComparingTo("2.00");
+		assertThat(debitTotal("1000", DAY_10)).isEqualByComparingTo("3.00");
+
+		service.flush();
+
+		// Oldest day first, so the day 10 row is seeded from totals that already include day 5
+		InOrder order = inOrder(repository);
+		order.verify(repository).addToDaysFrom("1000", DAY_5, 200, 0);
+		order.verify(repository).addToDaysFrom("1000", DAY_10, 100, 0);
+		order.verify(repository).addToDaysFrom("2000", DAY_5, 0, 200);
+		order.verify(repository).addToDaysFrom("2000", DAY_10, 0, 100);
+	}
+
+	@Test
+	void putsTotalsBackWhenTheFlushFailsAndRetriesThem() {
+		when(repository.addToDaysFrom(eq("1000"), any(), anyLong(), anyLong()))
+				.thenThrow(new QueryTimeoutException("statement timeout"))
+				.thenReturn(1);
+		service.recordApproval("1000", "2000", new BigDecimal("4.50"), DAY_5);
+
+		service.flush();
+
+		assertThat(debitTotal("1000", DAY_5)).isEqualByComparingTo("4.50");
+		assertThat(service.getBalance("2000", DAY_5).getCreditTotal()).isEqualByComparingTo("4.50");
+
+		service.flush();
+		service.flush();
+
+		// The failed transaction rolled back, so the retry posts the full totals of both accounts once more
+		verify(repository, times(2)).addToDaysFrom("1000", DAY_5, 450, 0);
+		verify(repository).addToDaysFrom("2000", DAY_5, 0, 450);
+	}
+
+	@Test
+	void postsApprovalsOnlyOnceTheirTransactionCommits() {
+		transactionTemplate.executeWithoutResult(status -> {
+			service.recordApproval("1000", "2000", new BigDecimal("1.00"), DAY_5);
+			status.setRollbackOnly();
+		});
+		assertThat(debitTotal("1000", DAY_5)).isZero();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			service.recordApproval("1000", "2000", new BigDecimal("1.00"), DAY_5);
+			assertThat(debitTotal("1000", DAY_5)).isZero();
+		});
+		assertThat(debitTotal("1000", DAY_5)).isEqualByComparingTo("1.00");
+
+		// Outside a transaction the approval is posted at once
+		service.recordApproval("1000", "2000", new BigDecimal("1.00"), DAY_5);
+		assertThat(debitTotal("1000", DAY_5)).isEqualByComparingTo("2.00");
+	}
+}
@@ -0,0 +1,122 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.BulkWriteResult;
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.dto.FailedVoucher;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.model.VoucherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class BisectingVoucherWriterTest {
+
+	private final List<String> stored = new ArrayList<>();
+	private int writes;
+
+	private static List<DebitVoucherMessage> vouchers(int count) {
+		List<DebitVoucherMessage> vouchers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			vouchers.add(DebitVoucherMessage.builder().voucherNumber("DV" + i).build());
+		}
+		return vouchers;
+	}
+
+	/**
+	 * A bisecting writer over a fake debit writer. Each write either fails with the error returned
+	 * for the batch or stores the whole batch
+	 */
+	private BisectingVoucherWriter writer(Function<List<? extends VoucherMessage>, RuntimeException> failure) {
+		VoucherBulkWriter bulkWriter = new VoucherBulkWriter() {
+			@Override
+			public BulkWriteResult write(List<? extends VoucherMessage> messages) {
+				writes++;
+				RuntimeException error = failure.apply(messages);
+				if (error != null) {
+					throw error;
+				}
+				messages.forEach(message -> stored.add(message.getVoucherNumber()));
+				return BulkWriteResult.builder().writer(getName()).type(getType())
+						.requested(messages.size()).written(messages.size()).build();
+			}
+
+			@Override
+			public VoucherType getType() {
+				return VoucherType.DEBIT;
+			}
+
+			@Override
+			public String getName() {
+				return "fake";
+			}
+		};
+
+		BisectingVoucherWriter writer = new BisectingVoucherWriter();
+		ReflectionTestUtils.setField(writer, "bulkWriters", List.of(bulkWriter));
+		ReflectionTestUtils.setField(writer, "metrics", mock(VoucherPipelineMetrics.class));
+		ReflectionTestUtils.setField(writer, "transientRetries", 2);
+		ReflectionTestUtils.setField(writer, "retryBackoffMs", 0L);
+		writer.init();
+		return writer;
+	}
+
+	@BeforeEach
+	void reset() {
+		stored.clear();
+		writes = 0;
+	}
+
+	@Test
+	void isolatesASingleBadVoucherInLogarithmicWrites() {
+		List<DebitVoucherMessage> batch = vouchers(16);
+		BisectingVoucherWriter writer = writer(messages -> messages.stream()
+				.anyMatch(message -> message.getVoucherNumber().equals("DV11"))
+				? new DataIntegrityViolationException("value too long for DV11")
+				: null);
+
+		List<FailedVoucher> failures = writer.write(VoucherType.DEBIT, batch);
+
+		assertThat(failures).singleElement().satisfies(failure -> {
+			assertThat(failure.getMessage().getVoucherNumber()).isEqualTo("DV11");
+			assertThat(failure.getError()).contains("DV11");
+		});
+		assertThat(stored).hasSize(15).doesNotContain("DV11");
+		// The whole batch, then both halves at each of the log2(16) = 4 levels
+		assertThat(writes).isEqualTo(1 + 2 * 4);
+	}
+
+	@Test
+	void retriesRetryableErrorsInPlaceAndRethrowsWithoutBisecting() {
+		BisectingVoucherWriter writer = writer(messages -> new TransientDataAccessResourceException("connection reset"));
+
+		assertThatThrownBy(() -> writer.write(VoucherType.DEBIT, vouchers(8)))
+				.isInstanceOf(TransientDataAccessResourceException.class);
+		// The first attempt and two retries, all with the full batch
+		assertThat(writes).isEqualTo(3);
+		assertThat(stored).isEmpty();
+	}
+
+	@Test
+	void classifiesErrorsByTheirWholeCauseChain() {
+		RuntimeException wrapped = new CompletionException(
+				new IllegalStateException("write failed", new SQLTransientConnectionException("pool exhausted")));
+
+		assertThat(BisectingVoucherWriter.isRetryable(wrapped)).isTrue();
+		assertThat(BisectingVoucherWriter.isRetryable(new TransientDataAccessResourceException("timeout"))).isTrue();
+		assertThat(BisectingVoucherWriter.isRetryable(
+				new CompletionException(new DataIntegrityViolationException("duplicate key")))).isFalse();
+		assertThat(BisectingVoucherWriter.isRetryable(new IllegalArgumentException("bad status"))).isFalse();
+	}
+}
@@ -0,0 +1,86 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.model.VoucherEvent;
+import com.bracit.voucher_engine.model.VoucherEventType;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.repository.VoucherEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VoucherEventRelayTest {
+
+	private final VoucherEventRepository repository = mock(VoucherEventRepository.class);
+	private final ConfirmingVoucherPublisher publisher = mock(ConfirmingVoucherPublisher.class);
+	private final VoucherEventRelay relay = new VoucherEventRelay();
+
+	@BeforeEach
+	void setUp() {
+		TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+		ReflectionTestUtils.setField(relay, "voucherEventRepository", repository);
+		ReflectionTestUtils.setField(relay, "publisher", publisher);
+		ReflectionTestUtils.setField(relay, "transactionTemplate", transactionTemplate);
+		ReflectionTestUtils.setField(relay, "enabled", true);
+		ReflectionTestUtils.setField(relay, "relayBatchSize", 4);
+	}
+
+	private static List<VoucherEvent> events(long firstId, long lastId) {
+		return LongStream.rangeClosed(firstId, lastId)
+				.mapToObj(id -> VoucherEvent.builder()
+						.id(id)
+						.eventType(VoucherEventType.APPROVED)
+						.voucherType(VoucherType.DEBIT)
+						.voucherId(100 + id)
+						.status(VoucherStatus.APPROVED)
+						.version(1)
+						.occurredAt(Instant.now())
+						.build())
+				.toList();
+	}
+
+	@Test
+	void deletesOnlyConfirmedEventsAndStopsAfterAPartialConfirm() {
+		when(repository.findAllByOrderByIdAsc(any(Limit.class))).thenReturn(events(1, 4));
+		when(publisher.publishEvents(anyList())).thenReturn(new boolean[]{true, false, true, false});
+
+		relay.relay();
+
+		verify(repository).deleteAllByIdInBatch(List.of(1L, 3L));
+		// Events 2 and 4 stay in the outbox for the next run rather than being retried at once
+		verify(repository, times(1)).findAllByOrderByIdAsc(any(Limit.class));
+	}
+
+	@Test
+	void keepsRelayingWhileBatchesAreFullAndConfirmed() {
+		when(repository.findAllByOrderByIdAsc(any(Limit.class)))
+				.thenReturn(events(1, 4))
+				.thenReturn(events(5, 6));
+		when(publisher.publishEvents(anyList()))
+				.thenReturn(new boolean[]{true, true, true, true})
+				.thenReturn(new boolean[]{true, true});
+
+		relay.relay();
+
+		verify(repository).deleteAllByIdInBatch(List.of(1L, 2L, 3L, 4L));
+		verify(repository).deleteAllByIdInBatch(List.of(5L, 6L));
+		verify(repository, times(2)).findAllByOrderByIdAsc(any(Limit.class));
+	}
+}
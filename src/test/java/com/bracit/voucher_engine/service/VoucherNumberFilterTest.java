@@ -0,0 +1,108 @@
+package com.bracit.voucher_engine.service;
+
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.dto.VoucherSummary;
+import com.bracit.voucher_engine.model.VoucherType;
+import com.bracit.voucher_engine.repository.DebitVoucherRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VoucherNumberFilterTest {
+
+	private final DebitVoucherRepository repository = mock(DebitVoucherRepository.class);
+	private final VoucherPipelineMetrics metrics = mock(VoucherPipelineMetrics.class);
+
+	private static List<DebitVoucherMessage> vouchers(String... voucherNumbers) {
+		return Arrays.stream(voucherNumbers)
+				.map(voucherNumber -> DebitVoucherMessage.builder().voucherNumber(voucherNumber).build())
+				.toList();
+	}
+
+	private static List<String> numbers(List<DebitVoucherMessage> vouchers) {
+		return vouchers.stream().map(DebitVoucherMessage::getVoucherNumber).toList();
+	}
+
+	/**
+	 * A filter rebuilt, on the calling thread, from the given stored voucher numbers
+	 */
+	private VoucherNumberFilter filter(long expectedVouchers, double falsePositiveRate, List<String> stored) {
+		List<VoucherSummary> page = new ArrayList<>();
+		for (int i = 0; i < stored.size(); i++) {
+			page.add(new VoucherSummary((long) i + 1, stored.get(i), null, null, null, null, null));
+		}
+		when(repository.findSummariesByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenReturn(page);
+
+		ExecutorService inline = mock(ExecutorService.class);
+		doAnswer(invocation -> {
+			invocation.<Runnable>getArgument(0).run();
+			return null;
+		}).when(inline).execute(any(Runnable.class));
+
+		VoucherNumberFilter filter = new VoucherNumberFilter(repository, VoucherType.DEBIT, metrics, inline,
+				expectedVouchers, falsePositiveRate);
+		filter.rebuild();
+		return filter;
+	}
+
+	@Test
+	void passesNewNumbersWithoutTouchingTheDatabase() {
+		VoucherNumberFilter filter = filter(1000, 0.01, List.of("DV1", "DV2"));
+
+		List<DebitVoucherMessage> unique = filter.removeDuplicates(vouchers("DV3", "DV4", "DV3"));
+
+		assertThat(numbers(unique)).containsExactly("DV3", "DV4");
+		verify(repository, never()).findExistingVoucherNumbers(anyCollection());
+	}
+
+	@Test
+	void dropsStoredNumbersAfterCheckingTheDatabase() {
+		VoucherNumberFilter filter = filter(1000, 0.01, List.of("DV1", "DV2"));
+		when(repository.findExistingVoucherNumbers(List.of("DV1"))).thenReturn(List.of("DV1"));
+
+		List<DebitVoucherMessage> unique = filter.removeDuplicates(vouchers("DV1", "DV5"));
+
+		assertThat(numbers(unique)).containsExactly("DV5");
+		verify(metrics).recordDedupeLookup(1, 1);
+	}
+
+	@Test
+	void keepsAFalsePositiveOnceTheDatabaseDoesNotHaveIt() {
+		// 64 bits holding 200 numbers: every bit is set, so any new number looks present
+		List<String> stored = IntStream.range(0, 200).mapToObj(i -> "DV" + i).toList();
+		VoucherNumberFilter filter = filter(1, 0.5, stored);
+		when(repository.findExistingVoucherNumbers(List.of("DV-NEW"))).thenReturn(List.of());
+
+		List<DebitVoucherMessage> unique = filter.removeDuplicates(vouchers("DV-NEW"));
+
+		assertThat(numbers(unique)).containsExactly("DV-NEW");
+		verify(repository).findExistingVoucherNumbers(List.of("DV-NEW"));
+		verify(metrics).recordDedupeLookup(1, 0);
+	}
+
+	@Test
+	void checksEveryNumberAgainstTheDatabaseUntilRebuilt() {
+		VoucherNumberFilter filter = new VoucherNumberFilter(repository, VoucherType.DEBIT, metrics,
+				mock(ExecutorService.class), 1000, 0.01);
+		when(repository.findExistingVoucherNumbers(List.of("DV1", "DV2"))).thenReturn(List.of("DV2"));
+
+		List<DebitVoucherMessage> unique = filter.removeDuplicates(vouchers("DV1", "DV2"));
+
+		assertThat(numbers(unique)).containsExactly("DV1");
+	}
+}
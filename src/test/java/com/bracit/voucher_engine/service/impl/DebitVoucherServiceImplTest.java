@@ -0,0 +1,96 @@
+package com.bracit.voucher_engine.service.impl;
+
+import com.bracit.voucher_engine.exception.InvalidStatusTransitionException;
+import com.bracit.voucher_engine.exception.VoucherConflictException;
+import com.bracit.voucher_engine.model.DebitVoucher;
+import com.bracit.voucher_engine.model.VoucherStatus;
+import com.bracit.voucher_engine.repository.DebitVoucherRepository;
+import com.bracit.voucher_engine.service.AccountBalanceService;
+import com.bracit.voucher_engine.service.DebitVoucherCache;
+import com.bracit.voucher_engine.service.VoucherEventOutbox;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DebitVoucherServiceImplTest {
+
+	private final DebitVoucherRepository repository = mock(DebitVoucherRepository.class);
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final VoucherEventOutbox voucherEventOutbox = mock(VoucherEventOutbox.class);
+	private final AccountBalanceService accountBalanceService = mock(AccountBalanceService.class);
+	private final Cache secondLevelCache = mock(Cache.class);
+
+	private DebitVoucherServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+
+		service = new DebitVoucherServiceImpl(repository, mock(DebitVoucherCache.class));
+		ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(service, "voucherEventOutbox", voucherEventOutbox);
+		ReflectionTestUtils.setField(service, "accountBalanceService", accountBalanceService);
+		ReflectionTestUtils.setField(service, "entityManagerFactory", entityManagerFactory);
+
+		DebitVoucher voucher = DebitVoucher.builder()
+				.id(7L)
+				.voucherNumber("DV7")
+				.amount(BigDecimal.TEN)
+				.debitAccount("1000")
+				.creditAccount("2000")
+				.status(VoucherStatus.PENDING_APPROVAL)
+				.version(3)
+				.build();
+		when(repository.findById(7L)).thenReturn(Optional.of(voucher));
+	}
+
+	@Test
+	void reportsAConflictWhenTheCompareAndSetMatchesNoRow() {
+		// The mocked JdbcTemplate updates no row, as if another request changed the voucher first
+		assertThatThrownBy(() -> service.approveVoucher(7L, "alice"))
+				.isInstanceOf(VoucherConflictException.class);
+
+		verify(secondLevelCache).evict(DebitVoucher.class, 7L);
+		verifyNoInteractions(voucherEventOutbox, accountBalanceService);
+	}
+
+	@Test
+	void reportsAConflictForAStaleExpectedVersionWithoutWriting() {
+		assertThatThrownBy(() -> service.transitionVoucher(7L, VoucherStatus.CANCELLED, "alice", 2L))
+				.isInstanceOf(VoucherConflictException.class);
+
+		verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+		verifyNoInteractions(voucherEventOutbox, accountBalanceService);
+	}
+
+	@Test
+	void rejectsTransitionsOutsideTheTable() {
+		assertThatThrownBy(() -> service.transitionVoucher(7L, VoucherStatus.DRAFT, "alice", null))
+				.isInstanceOf(InvalidStatusTransitionException.class);
+	}
+
+	@Test
+	void conflictsMapToHttp409() {
+		assertThat(VoucherConflictException.class.getAnnotation(ResponseStatus.class).value())
+				.isEqualTo(HttpStatus.CONFLICT);
+	}
+}
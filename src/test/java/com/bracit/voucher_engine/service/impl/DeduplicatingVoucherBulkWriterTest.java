@@ -0,0 +1,74 @@
+package com.bracit.voucher_engine.service.impl;
+
+import com.bracit.voucher_engine.dto.BulkWriteResult;
+import com.bracit.voucher_engine.dto.DebitVoucherMessage;
+import com.bracit.voucher_engine.dto.VoucherMessage;
+import com.bracit.voucher_engine.service.VoucherBulkWriter;
+import com.bracit.voucher_engine.service.VoucherNumberFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeduplicatingVoucherBulkWriterTest {
+
+	private final VoucherBulkWriter delegate = mock(VoucherBulkWriter.class);
+	private final VoucherNumberFilter filter = mock(VoucherNumberFilter.class);
+	private final DeduplicatingVoucherBulkWriter writer = new DeduplicatingVoucherBulkWriter(delegate, filter);
+
+	private static DebitVoucherMessage voucher(String voucherNumber) {
+		return DebitVoucherMessage.builder().voucherNumber(voucherNumber).build();
+	}
+
+	private static BulkWriteResult written(int count) {
+		return BulkWriteResult.builder().requested(count).written(count).build();
+	}
+
+	@Test
+	void reportsDroppedDuplicatesAsSkipped() {
+		List<DebitVoucherMessage> batch = List.of(voucher("DV1"), voucher("DV2"), voucher("DV1"));
+		List<DebitVoucherMessage> fresh = List.of(voucher("DV2"));
+		when(filter.removeDuplicates(batch)).thenReturn(fresh);
+		when(delegate.write(fresh)).thenReturn(written(1));
+
+		BulkWriteResult result = writer.write(batch);
+
+		assertThat(result.getRequested()).isEqualTo(3);
+		assertThat(result.getWritten()).isEqualTo(1);
+		assertThat(result.getSkipped()).isEqualTo(2);
+		verify(filter).addAll(fresh);
+	}
+
+	@Test
+	void rechecksTheDatabaseAndWritesAgainWhenARaceViolatesTheConstraint() {
+		List<DebitVoucherMessage> batch = List.of(voucher("DV1"), voucher("DV2"));
+		List<DebitVoucherMessage> remaining = List.of(voucher("DV2"));
+		when(filter.removeDuplicates(batch)).thenReturn(batch);
+		when(delegate.write(batch)).thenThrow(new DataIntegrityViolationException("duplicate voucher_number"));
+		when(filter.removeExisting(batch)).thenReturn(remaining);
+		when(delegate.write(remaining)).thenReturn(written(1));
+
+		BulkWriteResult result = writer.write(batch);
+
+		assertThat(result.getWritten()).isEqualTo(1);
+		assertThat(result.getSkipped()).isEqualTo(1);
+		verify(filter).addAll(remaining);
+	}
+
+	@Test
+	void propagatesOtherFailures() {
+		List<VoucherMessage> batch = List.of(voucher("DV1"));
+		when(filter.removeDuplicates(anyList())).thenReturn(batch);
+		when(delegate.write(anyList())).thenThrow(new IllegalStateException("connection lost"));
+
+		assertThatThrownBy(() -> writer.write(batch))
+				.isInstanceOf(IllegalStateException.class);
+	}
+}